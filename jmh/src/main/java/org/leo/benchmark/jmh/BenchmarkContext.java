@@ -0,0 +1,100 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark.jmh;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data shared by the JMH benchmarks, built the same way as in
+ * {@link org.leo.benchmark.Benchmark} so that both harnesses measure the same
+ * keys
+ *
+ * @author Tommy Ettinger
+ */
+final class BenchmarkContext {
+
+	/** Size of the collection used by the addAll/removeAll/containsAll/retainAll tasks */
+	static final int COL_SIZE = 1000;
+
+	private BenchmarkContext() {
+	}
+
+	/**
+	 * Default context used to populate the tested collection
+	 *
+	 * @param populateSize number of elements
+	 * @return the binary strings of 0 to populateSize - 1
+	 */
+	static ArrayList<String> defaultContext(int populateSize) {
+		ArrayList<String> defaultCtx = new ArrayList<>(populateSize);
+		for (int i = 0; i < populateSize; i++) {
+			defaultCtx.add(Integer.toBinaryString(i));
+		}
+		return defaultCtx;
+	}
+
+	/**
+	 * Keys not present in the default context, used by the add tasks
+	 *
+	 * @param populateSize number of elements in the default context
+	 * @param count number of keys to create
+	 * @return the binary strings of populateSize to populateSize + count - 1
+	 */
+	static String[] extraKeys(int populateSize, int count) {
+		String[] keys = new String[count];
+		for (int i = 0; i < count; i++) {
+			keys[i] = Integer.toBinaryString(populateSize + i);
+		}
+		return keys;
+	}
+
+	/**
+	 * Collection used by the bulk tasks, 1000 elements taken among the first 32
+	 * of the default context
+	 *
+	 * @param defaultCtx default context
+	 * @return the collection
+	 */
+	static ArrayList<String> col(List<String> defaultCtx) {
+		ArrayList<String> col = new ArrayList<>(COL_SIZE);
+		for (int i = 0; i < COL_SIZE; i++) {
+			col.add(defaultCtx.get(i & 31));
+		}
+		return col;
+	}
+
+	/**
+	 * Create a new instance of the given class with its no-arg constructor
+	 *
+	 * @param className fully qualified class name
+	 * @return the new instance
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> T newInstance(String className) {
+		try {
+			Constructor<?> constructor = Class.forName(className).getDeclaredConstructor((Class<?>[]) null);
+			constructor.setAccessible(true);
+			return (T) constructor.newInstance();
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Cannot instantiate " + className, e);
+		}
+	}
+}
@@ -0,0 +1,217 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH version of the Collection tasks of
+ * {@link org.leo.benchmark.Benchmark#run(Class)}
+ * <p>
+ * Read-only tasks measure a single call on a populated collection
+ * (average time), tasks that modify the collection run the same loop as the
+ * original task on a freshly populated instance (single shot time)
+ *
+ * @author Tommy Ettinger
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@Timeout(time = 15)
+@State(Scope.Thread)
+public class CollectionBenchmark {
+
+	/** Collection implementation to be tested */
+	@Param({ "java.util.HashSet", "java.util.TreeSet", "java.util.LinkedHashSet", "squidpony.squidmath.UnorderedSet",
+			"squidpony.squidmath.OrderedSet" })
+	public String implementation;
+
+	/**
+	 * Number of elements to populate the collection on which the benchmark will
+	 * be launched
+	 */
+	@Param({ "100000" })
+	public int populateSize;
+
+	/** Default context used to populate the tested collection */
+	private ArrayList<String> defaultCtx;
+
+	/** Collection used in the bulk tasks */
+	private ArrayList<String> col;
+
+	/** Keys not in the default context, for the add task */
+	private String[] extraKeys;
+
+	/** Populated collection, only used by tasks that do not modify it */
+	private Collection<String> collection;
+
+	/** Loop index of the read-only tasks */
+	private int index;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		defaultCtx = BenchmarkContext.defaultContext(populateSize);
+		col = BenchmarkContext.col(defaultCtx);
+		extraKeys = BenchmarkContext.extraKeys(populateSize, populateSize);
+		collection = newPopulated();
+	}
+
+	/**
+	 * @return a new instance of the tested implementation filled with the
+	 *         default context
+	 */
+	Collection<String> newPopulated() {
+		Collection<String> c = BenchmarkContext.newInstance(implementation);
+		c.addAll(defaultCtx);
+		return c;
+	}
+
+	/**
+	 * Freshly populated collection for the tasks that modify it, recreated
+	 * before each invocation (outside of the measurement)
+	 */
+	@State(Scope.Thread)
+	public static class Fresh {
+		Collection<String> collection;
+
+		@Setup(Level.Invocation)
+		public void reset(CollectionBenchmark benchmark) {
+			collection = benchmark.newPopulated();
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 20)
+	public void add(Fresh fresh, Blackhole bh) {
+		Collection<String> c = fresh.collection;
+		for (int i = 0; i < populateSize; i++) {
+			bh.consume(c.add(extraKeys[i]));
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 20)
+	public void remove(Fresh fresh, Blackhole bh) {
+		Collection<String> c = fresh.collection;
+		int loop = Math.max(1, populateSize / 10);
+		for (int i = 0; i < loop; i++) {
+			bh.consume(c.remove(defaultCtx.get(c.size() - 1 - i)));
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 20)
+	public void addAll(Fresh fresh, Blackhole bh) {
+		Collection<String> c = fresh.collection;
+		int loop = Math.min(populateSize, 1000);
+		for (int i = 0; i < loop; i++) {
+			bh.consume(c.addAll(col));
+		}
+	}
+
+	@Benchmark
+	public boolean contains() {
+		// same elements as the original task, the last ones of the context
+		if (++index >= Math.min(populateSize, 1000)) {
+			index = 0;
+		}
+		return collection.contains(defaultCtx.get(populateSize - 1 - index));
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 20)
+	public void removeAll(Fresh fresh, Blackhole bh) {
+		Collection<String> c = fresh.collection;
+		int loop = Math.min(populateSize, 10);
+		for (int i = 0; i < loop; i++) {
+			bh.consume(c.removeAll(col));
+		}
+	}
+
+	@Benchmark
+	public String iterator() {
+		Iterator<String> it = collection.iterator();
+		return it.hasNext() ? it.next() : null;
+	}
+
+	@Benchmark
+	public boolean containsAll() {
+		return collection.containsAll(col);
+	}
+
+	@Benchmark
+	public Object[] toArray() {
+		return collection.toArray();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 20)
+	public Collection<String> clear(Fresh fresh) {
+		fresh.collection.clear();
+		return fresh.collection;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 20)
+	public void retainAll(Fresh fresh, Blackhole bh) {
+		Collection<String> c = fresh.collection;
+		int loop = Math.min(populateSize, 10);
+		for (int i = 0; i < loop; i++) {
+			bh.consume(c.retainAll(col));
+		}
+	}
+}
@@ -0,0 +1,178 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark.jmh;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.OrderedSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH version of the libGDX OrderedSet tasks of
+ * {@link org.leo.benchmark.Benchmark#run(Class)}
+ *
+ * @author Tommy Ettinger
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@Timeout(time = 15)
+@State(Scope.Thread)
+public class GdxOrderedSetBenchmark {
+
+	/**
+	 * Number of elements to populate the set on which the benchmark will be
+	 * launched
+	 */
+	@Param({ "100000" })
+	public int populateSize;
+
+	/** Default context used to populate the tested set */
+	private String[] defaultCtx;
+
+	/** Array used in the addAll task */
+	private Array<String> col;
+
+	/** Keys not in the default context, for the add task */
+	private String[] extraKeys;
+
+	/** Populated set, only used by tasks that do not modify it */
+	private OrderedSet<String> gdxSet;
+
+	/** Loop index of the read-only tasks */
+	private int index;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		ArrayList<String> ctx = BenchmarkContext.defaultContext(populateSize);
+		defaultCtx = ctx.toArray(new String[0]);
+		col = new Array<>(BenchmarkContext.col(ctx).toArray(new String[0]));
+		extraKeys = BenchmarkContext.extraKeys(populateSize, populateSize);
+		gdxSet = newPopulated();
+	}
+
+	/**
+	 * @return a new OrderedSet filled with the default context
+	 */
+	OrderedSet<String> newPopulated() {
+		OrderedSet<String> s = new OrderedSet<>();
+		s.addAll(defaultCtx);
+		return s;
+	}
+
+	/**
+	 * Freshly populated set for the tasks that modify it, recreated before each
+	 * invocation (outside of the measurement)
+	 */
+	@State(Scope.Thread)
+	public static class Fresh {
+		OrderedSet<String> gdxSet;
+
+		@Setup(Level.Invocation)
+		public void reset(GdxOrderedSetBenchmark benchmark) {
+			gdxSet = benchmark.newPopulated();
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 20)
+	public void add(Fresh fresh, Blackhole bh) {
+		OrderedSet<String> s = fresh.gdxSet;
+		for (int i = 0; i < populateSize; i++) {
+			bh.consume(s.add(extraKeys[i]));
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 20)
+	public void remove(Fresh fresh, Blackhole bh) {
+		OrderedSet<String> s = fresh.gdxSet;
+		int loop = Math.max(1, populateSize / 10);
+		for (int i = 0; i < loop; i++) {
+			bh.consume(s.remove(defaultCtx[s.size - 1 - i]));
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 20)
+	public OrderedSet<String> addAll(Fresh fresh) {
+		OrderedSet<String> s = fresh.gdxSet;
+		int loop = Math.min(populateSize, 1000);
+		for (int i = 0; i < loop; i++) {
+			s.addAll(col);
+		}
+		return s;
+	}
+
+	@Benchmark
+	public boolean contains() {
+		if (++index >= Math.min(populateSize, 1000)) {
+			index = 0;
+		}
+		return gdxSet.contains(defaultCtx[populateSize - 1 - index]);
+	}
+
+	@Benchmark
+	public String iterator() {
+		Iterator<String> it = gdxSet.iterator();
+		return it.hasNext() ? it.next() : null;
+	}
+
+	@Benchmark
+	public Object[] toArray() {
+		return gdxSet.orderedItems().toArray();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 20)
+	public OrderedSet<String> clear(Fresh fresh) {
+		fresh.gdxSet.clear();
+		return fresh.gdxSet;
+	}
+}
@@ -0,0 +1,213 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH version of the List tasks of
+ * {@link org.leo.benchmark.Benchmark#run(Class)}, the Collection tasks are in
+ * {@link CollectionBenchmark} (use -p implementation=... to run them on lists)
+ *
+ * @author Tommy Ettinger
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@Timeout(time = 15)
+@State(Scope.Thread)
+public class ListBenchmark {
+
+	/** List implementation to be tested */
+	@Param({ "java.util.ArrayList", "java.util.LinkedList", "java.util.Vector",
+			"org.apache.commons.collections4.list.TreeList", "org.leo.list.CombinedList" })
+	public String implementation;
+
+	/**
+	 * Number of elements to populate the list on which the benchmark will be
+	 * launched
+	 */
+	@Param({ "100000" })
+	public int populateSize;
+
+	/** Default context used to populate the tested list */
+	private ArrayList<String> defaultCtx;
+
+	/** Collection used in the bulk tasks */
+	private ArrayList<String> col;
+
+	/** Values inserted by the add at a given index task */
+	private String[] indexKeys;
+
+	/** Values used by the set task */
+	private String[] setKeys;
+
+	/** Populated list, only used by tasks that do not change its size */
+	private List<String> list;
+
+	/** Loop index of the single call tasks */
+	private int index;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		defaultCtx = BenchmarkContext.defaultContext(populateSize);
+		col = BenchmarkContext.col(defaultCtx);
+		indexKeys = new String[populateSize];
+		for (int i = 0; i < populateSize; i++) {
+			indexKeys[i] = Integer.toString(i);
+		}
+		setKeys = new String[29];
+		for (int i = 0; i < setKeys.length; i++) {
+			setKeys[i] = Integer.toString(i);
+		}
+		list = newPopulated();
+	}
+
+	/**
+	 * @return a new instance of the tested implementation filled with the
+	 *         default context
+	 */
+	List<String> newPopulated() {
+		List<String> l = BenchmarkContext.newInstance(implementation);
+		l.addAll(defaultCtx);
+		return l;
+	}
+
+	/**
+	 * @param loop number of loops of the original task
+	 * @return the next loop index, wrapping at loop
+	 */
+	private int nextIndex(int loop) {
+		if (++index >= loop) {
+			index = 0;
+		}
+		return index;
+	}
+
+	/**
+	 * Freshly populated list for the tasks that change its size, recreated
+	 * before each invocation (outside of the measurement)
+	 */
+	@State(Scope.Thread)
+	public static class Fresh {
+		List<String> list;
+
+		@Setup(Level.Invocation)
+		public void reset(ListBenchmark benchmark) {
+			list = benchmark.newPopulated();
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 20)
+	public List<String> addAtIndex(Fresh fresh) {
+		List<String> l = fresh.list;
+		for (int i = 0; i < populateSize; i++) {
+			l.add(i, indexKeys[i]);
+		}
+		return l;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 20)
+	public void addAllAtIndex(Fresh fresh, Blackhole bh) {
+		List<String> l = fresh.list;
+		int loop = Math.min(populateSize, 1000);
+		for (int i = 0; i < loop; i++) {
+			bh.consume(l.addAll(i, col));
+		}
+	}
+
+	@Benchmark
+	public String get() {
+		return list.get(nextIndex(Math.min(populateSize, 50000)));
+	}
+
+	@Benchmark
+	public int indexOf() {
+		// the original task looks for an Integer in a List of String, so it
+		// always measures a full unsuccessful search
+		return list.indexOf(nextIndex(Math.min(populateSize, 5000)));
+	}
+
+	@Benchmark
+	public int lastIndexOf() {
+		return list.lastIndexOf(nextIndex(Math.min(populateSize, 5000)));
+	}
+
+	@Benchmark
+	public String set() {
+		int i = nextIndex(populateSize);
+		return list.set(i, setKeys[i % 29]);
+	}
+
+	@Benchmark
+	public List<String> subList() {
+		return list.subList(populateSize / 4, populateSize / 2);
+	}
+
+	@Benchmark
+	public ListIterator<String> listIterator() {
+		return list.listIterator();
+	}
+
+	@Benchmark
+	public ListIterator<String> listIteratorAtIndex() {
+		return list.listIterator(nextIndex(populateSize));
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 20)
+	public void removeAtIndex(Fresh fresh, Blackhole bh) {
+		List<String> l = fresh.list;
+		int loop = Math.min(populateSize, 10000);
+		for (int i = 0; i < loop; i++) {
+			bh.consume(l.remove(l.size() / 2));
+		}
+	}
+}
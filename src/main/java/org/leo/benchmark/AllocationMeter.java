@@ -0,0 +1,68 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Bytes allocated by the current thread, read from the HotSpot extension of
+ * {@link java.lang.management.ThreadMXBean}
+ *
+ * @author Tommy Ettinger
+ */
+public final class AllocationMeter {
+
+	/** HotSpot thread bean, null if the JVM does not count the allocations */
+	private static final com.sun.management.ThreadMXBean THREAD_BEAN;
+
+	static {
+		com.sun.management.ThreadMXBean bean = null;
+		java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if (threadBean instanceof com.sun.management.ThreadMXBean) {
+			bean = (com.sun.management.ThreadMXBean) threadBean;
+			if (bean.isThreadAllocatedMemorySupported()) {
+				bean.setThreadAllocatedMemoryEnabled(true);
+			} else {
+				bean = null;
+			}
+		}
+		THREAD_BEAN = bean;
+	}
+
+	private AllocationMeter() {
+	}
+
+	/**
+	 * @return true if the allocations can be counted on this JVM
+	 */
+	public static boolean isSupported() {
+		return THREAD_BEAN != null;
+	}
+
+	/**
+	 * @return the number of bytes allocated so far by the current thread, -1
+	 *         if not supported
+	 */
+	public static long currentThreadAllocatedBytes() {
+		if (THREAD_BEAN == null) {
+			return -1;
+		}
+		return THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
@@ -0,0 +1,208 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+/**
+ * Result of one benchmark task on one implementation
+ *
+ * @author Tommy Ettinger
+ */
+public class BenchResult {
+
+	/** Task name */
+	private final String task;
+
+	/** Tested implementation */
+	private final Class<?> implementation;
+
+	/**
+	 * Measured time in ns, mean of the iterations, or the time of the
+	 * interrupted iteration if the task timed out
+	 */
+	private final long time;
+
+	/** Statistics of the iterations */
+	private final Statistics statistics;
+
+	/** Number of loops the task should have run */
+	private final int loops;
+
+	/** Number of loops actually run */
+	private final int completedLoops;
+
+	/** Is the task timeout */
+	private final boolean timeout;
+
+	/** Bytes allocated by the timed loop, mean of the iterations, -1 if not measured */
+	private final long allocatedBytes;
+
+	/** Garbage collections during the timed loop, mean of the iterations */
+	private final double gcCount;
+
+	/** Time in ms spent in the garbage collectors during the timed loop, mean of the iterations */
+	private final double gcTime;
+
+	/** Latency of every call, null if not recorded */
+	private final LatencyHistogram latency;
+
+	/**
+	 * Constructor
+	 *
+	 * @param task task name
+	 * @param implementation tested implementation
+	 * @param time measured time in ns
+	 * @param statistics statistics of the iterations
+	 * @param loops number of loops the task should have run
+	 * @param completedLoops number of loops actually run
+	 * @param timeout is the task timeout
+	 * @param allocatedBytes bytes allocated by the timed loop, -1 if not
+	 *            measured
+	 * @param gcCount garbage collections during the timed loop
+	 * @param gcTime time in ms spent in the garbage collectors during the
+	 *            timed loop
+	 */
+	public BenchResult(String task, Class<?> implementation, long time, Statistics statistics, int loops,
+			int completedLoops, boolean timeout, long allocatedBytes, double gcCount, double gcTime) {
+		this(task, implementation, time, statistics, loops, completedLoops, timeout, allocatedBytes, gcCount, gcTime,
+				null);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param task task name
+	 * @param implementation tested implementation
+	 * @param time measured time in ns
+	 * @param statistics statistics of the iterations
+	 * @param loops number of loops the task should have run
+	 * @param completedLoops number of loops actually run
+	 * @param timeout is the task timeout
+	 * @param allocatedBytes bytes allocated by the timed loop, -1 if not
+	 *            measured
+	 * @param gcCount garbage collections during the timed loop
+	 * @param gcTime time in ms spent in the garbage collectors during the
+	 *            timed loop
+	 * @param latency latency of every call, null if not recorded
+	 */
+	public BenchResult(String task, Class<?> implementation, long time, Statistics statistics, int loops,
+			int completedLoops, boolean timeout, long allocatedBytes, double gcCount, double gcTime,
+			LatencyHistogram latency) {
+		this.task = task;
+		this.implementation = implementation;
+		this.time = time;
+		this.statistics = statistics;
+		this.loops = loops;
+		this.completedLoops = completedLoops;
+		this.timeout = timeout;
+		this.allocatedBytes = allocatedBytes;
+		this.gcCount = gcCount;
+		this.gcTime = gcTime;
+		this.latency = latency;
+	}
+
+	public String getTask() {
+		return task;
+	}
+
+	public Class<?> getImplementation() {
+		return implementation;
+	}
+
+	public long getTime() {
+		return time;
+	}
+
+	public Statistics getStatistics() {
+		return statistics;
+	}
+
+	public int getLoops() {
+		return loops;
+	}
+
+	public int getCompletedLoops() {
+		return completedLoops;
+	}
+
+	public boolean isTimeout() {
+		return timeout;
+	}
+
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * @return bytes allocated per call of the task, -1 if not measured
+	 */
+	public double getAllocatedBytesPerCall() {
+		if (allocatedBytes < 0 || completedLoops == 0) {
+			return -1;
+		}
+		return (double) allocatedBytes / completedLoops;
+	}
+
+	public double getGcCount() {
+		return gcCount;
+	}
+
+	public double getGcTime() {
+		return gcTime;
+	}
+
+	/**
+	 * @return latency of every call of every iteration, null if not recorded
+	 */
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+
+	/**
+	 * @return the share of the measured time spent in the garbage collectors,
+	 *         between 0 and 1
+	 */
+	public double getGcTimeFraction() {
+		if (time <= 0) {
+			return 0;
+		}
+		return Math.min(1.0, gcTime * 1000000.0 / time);
+	}
+
+	/**
+	 * @return calls per second, achieved before the interruption if the task
+	 *         timed out
+	 */
+	public double getThroughput() {
+		if (time <= 0) {
+			return 0;
+		}
+		return completedLoops * 1000000000.0 / time;
+	}
+
+	/**
+	 * @return time per call in ns, of the calls completed before the
+	 *         interruption if the task timed out, -1 if no call completed
+	 */
+	public double getTimePerCall() {
+		if (completedLoops == 0) {
+			return -1;
+		}
+		return (double) time / completedLoops;
+	}
+}
@@ -18,33 +18,42 @@
  */
 package org.leo.benchmark;
 
-import com.badlogic.gdx.utils.Array;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
-import org.jfree.chart.labels.AbstractCategoryItemLabelGenerator;
+import org.jfree.chart.labels.CategoryItemLabelGenerator;
 import org.jfree.chart.labels.ItemLabelAnchor;
 import org.jfree.chart.labels.ItemLabelPosition;
 import org.jfree.chart.labels.StandardCategoryItemLabelGenerator;
 import org.jfree.chart.plot.CategoryPlot;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.chart.renderer.category.BarRenderer;
+import org.jfree.chart.renderer.category.StatisticalBarRenderer;
 import org.jfree.chart.title.TextTitle;
 import org.jfree.chart.ui.TextAnchor;
 import org.jfree.data.category.CategoryDataset;
 import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.statistics.DefaultStatisticalCategoryDataset;
 import squidpony.squidmath.OrderedSet;
 import squidpony.squidmath.UnorderedSet;
 
-import javax.swing.Timer;
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.lang.management.ManagementFactory;
-import java.lang.reflect.Constructor;
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 /**
  * Collection Benchmark
@@ -53,14 +62,44 @@ import java.util.*;
  */
 public class Benchmark {
 
+	/**
+	 * Watchdog raising the timeout flag, the benchmark thread checks it between
+	 * two calls so the tested structure is never touched by another thread
+	 */
+	private static final ScheduledExecutorService WATCHDOG = Executors
+			.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "benchmark-watchdog");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	/** Maximum time in ms spent waiting for a stable heap between two tasks */
+	private static final long SETTLE_TIMEOUT = 2000;
+
+	/** Timeout in ms of the command line benchmark */
+	static final long DEFAULT_TIMEOUT = 15000;
+
+	/** Populate size of the command line benchmark */
+	static final int DEFAULT_SIZE = 100000;
+
 	/**
 	 * Time in ms after which the benchmark task is considered timeout and is
 	 * stopped
 	 */
 	private long timeout;
 
-	/** Is the given benchmark task timeout */
-	private volatile boolean isTimeout;
+
+	/** Number of measurement iterations of each task */
+	private int iterations = 5;
+
+	/** Reject the outlying iterations before computing the statistics */
+	private boolean trimOutliers;
+
+	/** Share of the measured time spent in GC above which a task is flagged */
+	private double gcThreshold = 0.1;
 
 	/**
 	 * Number of elements to populate the collection on which the benchmark will
@@ -68,26 +107,96 @@ public class Benchmark {
 	 */
 	private int populateSize;
 
-	/** Collection implementation to be tested */
-	private Collection<String> collection;
-	
-	private com.badlogic.gdx.utils.OrderedSet<String> gdxSet;
-	
+	/** Collection implementation to be tested, seen through its adapter */
+	private CollectionAdapter<Object> adapter;
+
+	/** Map implementation to be tested, seen through its adapter */
+	private MapAdapter<Object, Integer> mapAdapter;
+
+	/** int collection implementation of the primitive benchmark */
+	private IntCollectionAdapter intAdapter;
+
+	/** int to int map implementation of the primitive benchmark */
+	private IntMapAdapter intMapAdapter;
+
+	/** Structure currently benchmarked, one of the adapters above */
+	private StructureAdapter subject;
+
+	/** Receives the results of the tasks that could otherwise be optimized away */
+	private int sink;
+
 	/** List implementation to be tested */
-	private List<String> list;
+	private List<Object> list;
+
+	/** Keys of the default context and of the tasks */
+	private Workload workload;
 
 	/**
 	 * Default context used for each benchmark test (will populate the tested
 	 * collection before launching the bench)
 	 */
-	private ArrayList<String> defaultCtx;
+	private ArrayList<Object> defaultCtx;
+
+	/** Keys that are not in the default context, as many as in it */
+	private ArrayList<Object> extraKeys;
+
+	/** Indexes in the default context of the keys looked up by the tasks */
+	private int[] lookups;
+
+	/**
+	 * Indexes in the default context of the keys looked up by the map tasks,
+	 * ascending with the original keys as in the original map benchmark
+	 */
+	private int[] mapLookups;
+
+	/** Elements inserted at a given index in the lists */
+	private Object[] insertedKeys;
+
+	/** Elements set in the lists, one per residue modulo 29 */
+	private Object[] replacements;
+
+	/** Boxed 0 to populateSize - 1, values put in the maps and searched in the lists */
+	private Integer[] indexes;
+
+	/** Boxed values that no map holds */
+	private Integer[] missingValues;
 
 	/** Benchmark results */
-	private Map<String, Map<Class<?>, Long>> benchResults;
+	private Map<String, Map<Class<?>, BenchResult>> benchResults;
 
 	/** Memory results */
 	private Map<Class<?>, Long> memoryResults;
 
+	/** Memory results of the primitive benchmark, in bytes per element */
+	private Map<Class<?>, Double> elementMemoryResults;
+
+	/** Skip the Swing display of the results, for machines without screen */
+	private boolean headless = GraphicsEnvironment.isHeadless();
+
+	/** A trace is replayed, each iteration starts from an empty structure */
+	private boolean replaying;
+
+	/** Time every call into a latency histogram */
+	private boolean recordLatency;
+
+	/** Only task run, all of them if null */
+	private String taskFilter;
+
+	/** Recorded traces replayed instead of the tasks */
+	private List<File> traces = new ArrayList<>();
+
+	/** Names of the tasks met while listing them, null when running them */
+	private List<String> taskNames;
+
+	/** Run each task of {@link #runSuite(Class)} in classes of its own */
+	private boolean isolateTasks = true;
+
+	/**
+	 * Copy of the classes made by {@link TaskClassLoader} to run a single task,
+	 * the original benchmark prints the headers
+	 */
+	private boolean taskCopy;
+
 	/**
 	 * Constructor
 	 * 
@@ -95,14 +204,50 @@ public class Benchmark {
 	 * @param populateSize
 	 */
 	public Benchmark(long timeout, int populateSize) {
+		this(timeout, populateSize, Workload.legacy());
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param timeout timeout in ms of each task
+	 * @param populateSize number of elements of the tested structures
+	 * @param workload keys of the structures and of the tasks
+	 */
+	public Benchmark(long timeout, int populateSize, Workload workload) {
 		this.timeout = timeout;
 		this.populateSize = populateSize;
-		defaultCtx = new ArrayList<>();
+		this.workload = workload;
+		List<Object> keys = workload.keys(populateSize * 2);
+		defaultCtx = new ArrayList<>(keys.subList(0, populateSize));
+		extraKeys = new ArrayList<>(keys.subList(populateSize, keys.size()));
+		lookups = workload.lookups(populateSize, populateSize);
+		if (workload.isLegacy()) {
+			mapLookups = new int[populateSize];
+			for (int i = 0; i < populateSize; i++) {
+				mapLookups[i] = i;
+			}
+		} else {
+			mapLookups = lookups;
+		}
+		// the arguments of the tasks are built here, out of the timed loops
+		insertedKeys = new Object[populateSize];
+		indexes = new Integer[populateSize];
 		for (int i = 0; i < populateSize; i++) {
-			defaultCtx.add(Integer.toBinaryString(i));
+			insertedKeys[i] = Integer.toString(i);
+			indexes[i] = i;
+		}
+		replacements = new Object[29];
+		for (int i = 0; i < replacements.length; i++) {
+			replacements[i] = Integer.toString(i);
+		}
+		missingValues = new Integer[Math.min(populateSize, 1000)];
+		for (int i = 0; i < missingValues.length; i++) {
+			missingValues[i] = -1 - i;
 		}
 		benchResults = new HashMap<>();
 		memoryResults = new HashMap<>();
+		elementMemoryResults = new HashMap<>();
 	}
 
 	/**
@@ -113,261 +258,811 @@ public class Benchmark {
 	 * @throws IllegalAccessException
 	 * @throws InstantiationException
 	 */
-	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@SuppressWarnings("unchecked")
 	public void run(Class<?> collectionClass) {
 		try {
-			if(Collection.class.isAssignableFrom(collectionClass)) {
-				long startTime = System.currentTimeMillis();
-				Constructor<?> constructor = collectionClass.getDeclaredConstructor((Class<?>[]) null);
-				constructor.setAccessible(true);
-				collection = (Collection<String>) constructor.newInstance();
-				System.out.println("Performances of " + collection.getClass().getCanonicalName() + " populated with "
-						+ populateSize + " elt(s)");
-				System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
-
-				// some collection used in some benchmark cases
-				final ArrayList<String> col = new ArrayList<>();
-				for (int i = 0; i < 1000; i++) {
-					col.add(defaultCtx.get(i & 31));
-				}
-
-				// Collection benchmark
+			long startTime = System.currentTimeMillis();
+			adapter = CollectionAdapters.create(collectionClass);
+			subject = adapter;
+			if (taskNames == null && !taskCopy) {
+				printHeader(adapter.getImplementationClass());
+			}
+
+			// some collection used in some benchmark cases
+			final ArrayList<Object> col = new ArrayList<>();
+			for (int i = 0; i < 1000; i++) {
+				col.add(defaultCtx.get(i & 31));
+			}
+
+			// Collection benchmark
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					adapter.add(extraKeys.get(i));
+				}
+			}, populateSize, "add " + populateSize + " elements");
+
+			execute(new BenchRunnable() {
+				private Object[] removed;
+
+				@Override
+				public void setUp(int loop) {
+					// the key at size - 1 - i once the i previous ones are
+					// removed, as when the size was read at every call
+					removed = new Object[loop];
+					int size = adapter.size();
+					for (int i = 0; i < loop; i++) {
+						removed[i] = defaultCtx.get(Math.max(0, size - 1 - 2 * i));
+					}
+				}
+
+				@Override
+				public void run(int i) {
+					adapter.remove(removed[i]);
+				}
+			}, Math.max(1, populateSize / 10), "remove " + Math.max(1, populateSize / 10) + " elements given Object");
+
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					adapter.addAll(col);
+				}
+			}, Math.min(populateSize, 1000), "addAll " + Math.min(populateSize, 1000) + " times " + col.size()
+					+ " elements");
+
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					adapter.contains(defaultCtx.get(lookups[i]));
+				}
+			}, Math.min(populateSize, 1000), "contains " + Math.min(populateSize, 1000) + " times");
+
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					adapter.removeAll(col);
+				}
+			}, Math.min(populateSize, 10), "removeAll " + Math.min(populateSize, 10) + " times " + col.size()
+					+ " elements");
+
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					Iterator<Object> it = adapter.iterator();
+					if (it.hasNext())
+						it.next();
+				}
+			}, populateSize, "iterator " + populateSize + " times");
+
+			// full traversals, every element is read and its hash summed so
+			// the traversal cannot be optimized away, the same way whatever
+			// the traversal
+			final int traversals = traversals();
+			final HashSum hashSum = new HashSum();
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					hashSum.sum = 0;
+					Iterator<Object> it = adapter.iterator();
+					while (it.hasNext()) {
+						hashSum.accept(it.next());
+					}
+					sink += hashSum.sum;
+				}
+			}, traversals, "traverse with iterator " + traversals + " times");
+
+			if (adapter.getTarget() instanceof Iterable) {
 				execute(new BenchRunnable() {
+					@SuppressWarnings("unchecked")
 					@Override
 					public void run(int i) {
-						collection.add(Integer.toBinaryString(populateSize + i));
+						hashSum.sum = 0;
+						for (Object element : (Iterable<Object>) adapter.getTarget()) {
+							hashSum.accept(element);
+						}
+						sink += hashSum.sum;
 					}
-				}, populateSize, "add " + populateSize + " elements");
+				}, traversals, "traverse with for-each " + traversals + " times");
 
 				execute(new BenchRunnable() {
+					@SuppressWarnings("unchecked")
 					@Override
 					public void run(int i) {
-						collection.remove(defaultCtx.get(collection.size() - 1 - i));
+						hashSum.sum = 0;
+						((Iterable<Object>) adapter.getTarget()).forEach(hashSum);
+						sink += hashSum.sum;
 					}
-				}, Math.max(1, populateSize / 10), "remove " + Math.max(1, populateSize / 10) + " elements given Object");
+				}, traversals, "traverse with forEach " + traversals + " times");
 
 				execute(new BenchRunnable() {
+					@SuppressWarnings("unchecked")
 					@Override
 					public void run(int i) {
-						collection.addAll(col);
+						hashSum.sum = 0;
+						((Iterable<Object>) adapter.getTarget()).spliterator().forEachRemaining(hashSum);
+						sink += hashSum.sum;
+					}
+				}, traversals, "traverse with spliterator " + traversals + " times");
+			}
+
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					adapter.containsAll(col);
+				}
+			}, Math.min(populateSize, 5000), "containsAll " + Math.min(populateSize, 5000) + " times");
+
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					adapter.toArray();
+				}
+			}, Math.min(populateSize, 5000), "toArray " + Math.min(populateSize, 5000) + " times");
+
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					adapter.clear();
+				}
+			}, 1, "clear");
+
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					adapter.retainAll(col);
+				}
+			}, Math.min(populateSize, 10), "retainAll " + Math.min(populateSize, 10) + " times");
+
+			// Java 8 bulk operations, each removeIf removes another tenth of
+			// the elements and each sort orders them differently
+			final List<Predicate<Object>> tenths = new ArrayList<>();
+			final List<Comparator<Object>> orders = new ArrayList<>();
+			for (int t = 0; t < 10; t++) {
+				final int tenth = t;
+				final int multiplier = 0x9E3779B9 + 2 * t;
+				tenths.add(new Predicate<Object>() {
+					@Override
+					public boolean test(Object element) {
+						return Math.floorMod(element.hashCode(), 10) == tenth;
+					}
+				});
+				orders.add(new Comparator<Object>() {
+					@Override
+					public int compare(Object o1, Object o2) {
+						return Integer.compare(o1.hashCode() * multiplier, o2.hashCode() * multiplier);
+					}
+				});
+			}
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					adapter.removeIf(tenths.get(i));
+				}
+			}, 10, "removeIf 10 times a tenth of the elements");
+
+			if (adapter.isSortable()) {
+				execute(new BenchRunnable() {
+					@Override
+					public void run(int i) {
+						adapter.sort(orders.get(i));
+					}
+				}, 10, "sort 10 times");
+			}
+
+			// List benchmark
+			if (adapter.getTarget() instanceof List) {
+				list = (List<Object>) adapter.getTarget();
+				execute(new BenchRunnable() {
+					@Override
+					public void run(int i) {
+						list.add(i, insertedKeys[i]);
+					}
+				}, populateSize, "add at a given index " + populateSize + " elements");
+
+				execute(new BenchRunnable() {
+					@Override
+					public void run(int i) {
+						list.addAll((i), col);
 					}
 				}, Math.min(populateSize, 1000), "addAll " + Math.min(populateSize, 1000) + " times " + col.size()
-						+ " elements");
+						+ " elements at a given index");
 
 				execute(new BenchRunnable() {
 					@Override
 					public void run(int i) {
-						collection.contains(defaultCtx.get(collection.size() - i - 1));
+						list.get(i);
 					}
-				}, Math.min(populateSize, 1000), "contains " + Math.min(populateSize, 1000) + " times");
+				}, Math.min(populateSize, 50000), "get " + Math.min(populateSize, 50000) + " times");
 
 				execute(new BenchRunnable() {
 					@Override
 					public void run(int i) {
-						collection.removeAll(col);
+						hashSum.sum = 0;
+						for (int j = 0, n = list.size(); j < n; j++) {
+							hashSum.accept(list.get(j));
+						}
+						sink += hashSum.sum;
 					}
-				}, Math.min(populateSize, 10), "removeAll " + Math.min(populateSize, 10) + " times " + col.size()
-						+ " elements");
+				}, traversals, "traverse with indexed get " + traversals + " times");
 
 				execute(new BenchRunnable() {
 					@Override
 					public void run(int i) {
-						Iterator<String> it = collection.iterator();
-						if (it.hasNext())
-							it.next();
+						list.indexOf(indexes[i]);
 					}
-				}, populateSize, "iterator " + populateSize + " times");
+				}, Math.min(populateSize, 5000), "indexOf " + Math.min(populateSize, 5000) + " times");
 
 				execute(new BenchRunnable() {
 					@Override
 					public void run(int i) {
-						collection.containsAll(col);
+						list.lastIndexOf(indexes[i]);
 					}
-				}, Math.min(populateSize, 5000), "containsAll " + Math.min(populateSize, 5000) + " times");
+				}, Math.min(populateSize, 5000), "lastIndexOf " + Math.min(populateSize, 5000) + " times");
 
 				execute(new BenchRunnable() {
 					@Override
 					public void run(int i) {
-						collection.toArray();
+						list.set(i, replacements[i % 29]);
 					}
-				}, Math.min(populateSize, 5000), "toArray " + Math.min(populateSize, 5000) + " times");
+				}, Math.max(1, populateSize), "set " + Math.max(1, populateSize) + " times");
 
 				execute(new BenchRunnable() {
 					@Override
 					public void run(int i) {
-						collection.clear();
+						list.subList(adapter.size() / 4, adapter.size() / 2);
 					}
-				}, 1, "clear");
+				}, populateSize, "subList on a " + (populateSize / 2 - populateSize / 4) + " elts sublist "
+						+ populateSize + " times");
 
 				execute(new BenchRunnable() {
 					@Override
 					public void run(int i) {
-						collection.retainAll(col);
+						list.listIterator();
 					}
-				}, Math.min(populateSize, 10), "retainAll " + Math.min(populateSize, 10) + " times");
+				}, populateSize, "listIterator " + populateSize + " times");
 
-				// List benchmark
-				if (collection instanceof List) {
-					list = (List<String>) collection;
-					execute(new BenchRunnable() {
-						@Override
-						public void run(int i) {
-							list.add((i), Integer.toString(i));
-						}
-					}, populateSize, "add at a given index " + populateSize + " elements");
+				execute(new BenchRunnable() {
+					@Override
+					public void run(int i) {
+						list.listIterator(i);
+					}
+				}, populateSize, "listIterator at a given index " + populateSize + " times");
 
-					execute(new BenchRunnable() {
-						@Override
-						public void run(int i) {
-							list.addAll((i), col);
-						}
-					}, Math.min(populateSize, 1000), "addAll " + Math.min(populateSize, 1000) + " times " + col.size()
-							+ " elements at a given index");
+				execute(new BenchRunnable() {
+					@Override
+					public void run(int i) {
+						list.remove(list.size() / 2);
+					}
+				}, 10000, "remove " + 10000 + " elements given index (index=list.size()/2)");
 
-					execute(new BenchRunnable() {
-						@Override
-						public void run(int i) {
-							list.get(i);
-						}
-					}, Math.min(populateSize, 50000), "get " + Math.min(populateSize, 50000) + " times");
+				final UnaryOperator<Object> same = new UnaryOperator<Object>() {
+					@Override
+					public Object apply(Object element) {
+						return element;
+					}
+				};
+				execute(new BenchRunnable() {
+					@Override
+					public void run(int i) {
+						list.replaceAll(same);
+					}
+				}, traversals, "replaceAll " + traversals + " times");
+			}
 
-					execute(new BenchRunnable() {
-						@Override
-						public void run(int i) {
-							list.indexOf(i);
-						}
-					}, Math.min(populateSize, 5000), "indexOf " + Math.min(populateSize, 5000) + " times");
+			if (taskNames == null && !taskCopy) {
+				printFooter(startTime);
+			}
+			// free memory
+			adapter.clear();
+		} catch (Exception e) {
+			System.err.println("Failed running benchmark on class " + collectionClass.getCanonicalName());
+			e.printStackTrace();
+		}
+		adapter = null;
+		subject = null;
+		list = null;
+		if (taskNames == null) {
+			GcMeter.settle(SETTLE_TIMEOUT);
+		}
+	}
 
-					execute(new BenchRunnable() {
-						@Override
-						public void run(int i) {
-							list.lastIndexOf(i);
-						}
-					}, Math.min(populateSize, 5000), "lastIndexOf " + Math.min(populateSize, 5000) + " times");
+	/**
+	 * @param implementation tested implementation
+	 */
+	private void printHeader(Class<?> implementation) {
+		System.out.println("Performances of " + implementation.getCanonicalName() + " populated with "
+				+ populateSize + " elt(s)" + workloadDescription());
+		System.out.println("Java 8 bulk operations : " + bulkOperationOrigins(implementation));
+		System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+	}
 
-					execute(new BenchRunnable() {
-						@Override
-						public void run(int i) {
-							list.set(i, Integer.toString(i % 29));
-						}
-					}, Math.max(1, populateSize), "set " + Math.max(1, populateSize) + " times");
+	/**
+	 * @param startTime time in ms the benchmark of the implementation started
+	 */
+	private static void printFooter(long startTime) {
+		System.out.println("Benchmark done in " + ((double) (System.currentTimeMillis() - startTime)) / 1000 + "s");
+		System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+	}
 
-					execute(new BenchRunnable() {
-						@Override
-						public void run(int i) {
-							list.subList(collection.size() / 4, collection.size() / 2);
-						}
-					}, populateSize, "subList on a " + (populateSize / 2 - populateSize / 4) + " elts sublist "
-							+ populateSize + " times");
+	/**
+	 * Replay the recorded traces on the given collection if there are any,
+	 * else run the benchmark tasks, each one in classes of its own unless
+	 * {@link #setIsolateTasks(boolean)} turned it off
+	 *
+	 * @param collectionClass a class supported by {@link CollectionAdapters}
+	 */
+	public void runSuite(Class<?> collectionClass) {
+		if (isolateTasks) {
+			runIsolated(collectionClass);
+			return;
+		}
+		if (traces.isEmpty()) {
+			run(collectionClass);
+			return;
+		}
+		for (File trace : traces) {
+			if (taskFilter != null && !taskFilter.equals(replayTaskName(trace.getName()))) {
+				continue;
+			}
+			try {
+				runTrace(collectionClass, Trace.read(trace), trace.getName());
+			} catch (IOException e) {
+				System.err.println("Failed reading trace " + trace);
+				e.printStackTrace();
+			}
+		}
+	}
 
-					execute(new BenchRunnable() {
-						@Override
-						public void run(int i) {
-							list.listIterator();
-						}
-					}, populateSize, "listIterator " + populateSize + " times");
+	/**
+	 * Run the tasks of {@link #runSuite(Class)}, each one in a new copy of the
+	 * benchmark classes made by {@link TaskClassLoader}: the task, the adapter
+	 * and the timed loop only ever see one task and one implementation, so
+	 * their calls are not slowed down by the profiles of the tasks and
+	 * implementations run before
+	 *
+	 * @param collectionClass a class supported by {@link CollectionAdapters}
+	 */
+	public void runIsolated(Class<?> collectionClass) {
+		long startTime = System.currentTimeMillis();
+		List<String> tasks = listTasks(collectionClass);
+		if (tasks.isEmpty()) {
+			return;
+		}
+		// the replays print their own headers
+		boolean replay = !traces.isEmpty();
+		if (!replay) {
+			try {
+				printHeader(CollectionAdapters.create(collectionClass).getImplementationClass());
+			} catch (ReflectiveOperationException e) {
+				System.err.println("Failed running benchmark on class " + collectionClass.getCanonicalName());
+				e.printStackTrace();
+				return;
+			}
+		}
+		String[] settings = settings();
+		for (String task : tasks) {
+			if (taskFilter != null && !taskFilter.equals(task)) {
+				continue;
+			}
+			try {
+				for (BenchResult result : TaskClassLoader.run(settings, collectionClass, task)) {
+					addResult(result);
+				}
+			} catch (ReflectiveOperationException e) {
+				System.err.println("Failed running " + task + " on class " + collectionClass.getCanonicalName());
+				e.printStackTrace();
+			}
+		}
+		if (!replay) {
+			printFooter(startTime);
+		}
+	}
 
-					execute(new BenchRunnable() {
-						@Override
-						public void run(int i) {
-							list.listIterator(i);
-						}
-					}, populateSize, "listIterator at a given index " + populateSize + " times");
+	/**
+	 * Entry point of the copies made by {@link TaskClassLoader}
+	 *
+	 * @param settings command line settings, see
+	 *            {@link #parseArgument(String[], int)}
+	 * @param collectionClass a class supported by {@link CollectionAdapters}
+	 * @param task name of the only task to run
+	 * @return results of the task
+	 */
+	private static List<BenchResult> runTask(String[] settings, Class<?> collectionClass, String task) {
+		Benchmark benchmark = fromArgs(settings);
+		for (int i = 0; i < settings.length; i++) {
+			int last = benchmark.parseArgument(settings, i);
+			if (last >= 0) {
+				i = last;
+			}
+		}
+		benchmark.setIsolateTasks(false);
+		benchmark.taskCopy = true;
+		benchmark.setTaskFilter(task);
+		try {
+			benchmark.runSuite(collectionClass);
+			return benchmark.getResults();
+		} finally {
+			// stop the watchdog thread of this copy, so that it can be unloaded
+			WATCHDOG.shutdownNow();
+		}
+	}
 
-					execute(new BenchRunnable() {
-						@Override
-						public void run(int i) {
-							list.remove(list.size() / 2);
-						}
-					}, 10000, "remove " + 10000 + " elements given index (index=list.size()/2)");
+	/**
+	 * @return the settings of this benchmark as command line arguments, read
+	 *         back by {@link #fromArgs(String[])} and
+	 *         {@link #parseArgument(String[], int)}
+	 */
+	private String[] settings() {
+		List<String> args = new ArrayList<>();
+		args.addAll(Arrays.asList("--size", Integer.toString(populateSize), "--timeout", Long.toString(timeout),
+				"--iterations", Integer.toString(iterations), "--gc-threshold", Double.toString(gcThreshold)));
+		if (trimOutliers) {
+			args.add("--trim");
+		}
+		if (recordLatency) {
+			args.add("--latency");
+		}
+		for (File trace : traces) {
+			args.add("--trace");
+			args.add(trace.getPath());
+		}
+		args.addAll(workload.toArgs());
+		return args.toArray(new String[args.size()]);
+	}
+
+	/**
+	 * @param traceName name of a replayed trace
+	 * @return name of its replay task
+	 */
+	private static String replayTaskName(String traceName) {
+		return "replay " + traceName;
+	}
+
+	/**
+	 * @param trace recorded trace, see {@link TraceRecorder}, replayed by
+	 *            {@link #runSuite(Class)} instead of the tasks
+	 */
+	public void addTrace(File trace) {
+		traces.add(trace);
+	}
+
+	/**
+	 * Replay a recorded trace on the given collection, each iteration starts
+	 * from a new empty instance, the keys come from the workload
+	 *
+	 * @param collectionClass a class supported by {@link CollectionAdapters}
+	 * @param trace the recorded calls
+	 * @param traceName name of the task
+	 */
+	public void runTrace(Class<?> collectionClass, Trace trace, String traceName) {
+		try {
+			long startTime = System.currentTimeMillis();
+			final TraceReplay replay = new TraceReplay(trace, workload.keys(trace.getKeyCount()));
+			adapter = CollectionAdapters.create(collectionClass);
+			subject = adapter;
+			System.out.println("Replay of " + traceName + " (" + trace.size() + " calls, " + trace.getKeyCount()
+					+ " keys) on " + adapter.getImplementationClass().getCanonicalName() + workloadDescription());
+			System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+			int divergence = replay.verify(CollectionAdapters.<Object> create(collectionClass));
+			if (divergence >= 0) {
+				System.out.println("Warning: from call " + divergence
+						+ " on, the replay does not match the recorded sizes");
+			}
+			replaying = true;
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					sink += replay.step(adapter, i);
 				}
+			}, trace.size(), replayTaskName(traceName));
+			System.out.println("Benchmark done in " + ((double) (System.currentTimeMillis() - startTime)) / 1000 + "s");
+			System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+		} catch (Exception e) {
+			System.err.println("Failed replaying " + traceName + " on class " + collectionClass.getCanonicalName());
+			e.printStackTrace();
+		}
+		replaying = false;
+		adapter = null;
+		subject = null;
+		list = null;
+		GcMeter.settle(SETTLE_TIMEOUT);
+	}
+
+	/**
+	 * @param clazz a structure class
+	 * @return where its Java 8 bulk operations come from: the class
+	 *         overriding them, the interface whose default method it inherits,
+	 *         or the adapter when it has none
+	 */
+	static String bulkOperationOrigins(Class<?> clazz) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("removeIf ").append(origin(clazz, "removeIf", Predicate.class));
+		sb.append(", forEach ").append(origin(clazz, "forEach", Consumer.class));
+		sb.append(", spliterator ").append(origin(clazz, "spliterator"));
+		if (List.class.isAssignableFrom(clazz)) {
+			sb.append(", replaceAll ").append(origin(clazz, "replaceAll", UnaryOperator.class));
+		}
+		sb.append(", sort ").append(origin(clazz, "sort", Comparator.class));
+		return sb.toString();
+	}
+
+	/**
+	 * @param clazz a structure class
+	 * @param name method name
+	 * @param parameterTypes method parameters
+	 * @return the simple name of the class declaring the method, prefixed
+	 *         with "default" for an interface, "adapter" if there is no
+	 *         such method
+	 */
+	private static String origin(Class<?> clazz, String name, Class<?>... parameterTypes) {
+		try {
+			Class<?> declaring = clazz.getMethod(name, parameterTypes).getDeclaringClass();
+			return declaring.isInterface() ? "default " + declaring.getSimpleName() : declaring.getSimpleName();
+		} catch (NoSuchMethodException e) {
+			return "adapter";
+		}
+	}
+
+	/**
+	 * @return number of full traversals of a task, so that each task reads
+	 *         about a million elements
+	 */
+	private int traversals() {
+		return Math.max(1, Math.min(1000, 1000000 / Math.max(1, populateSize)));
+	}
 
-				System.out.println("Benchmark done in " + ((double) (System.currentTimeMillis() - startTime)) / 1000 + "s");
-				System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
-				// free memory
-				collection.clear();
+	/**
+	 * Run the map benchmark on the given map, the keys are the ones of the
+	 * collection benchmark so both can be compared
+	 *
+	 * @param mapClass a {@link Map} or libGDX ObjectMap class
+	 */
+	public void runMap(Class<?> mapClass) {
+		try {
+			long startTime = System.currentTimeMillis();
+			mapAdapter = MapAdapters.create(mapClass);
+			subject = mapAdapter;
+			System.out.println("Performances of " + mapAdapter.getImplementationClass().getCanonicalName()
+					+ " populated with " + populateSize + " entries" + workloadDescription());
+			System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+
+			// some map used in the putAll case, overwriting existing keys
+			final Map<Object, Integer> col = new HashMap<>();
+			for (int i = 0; i < Math.min(populateSize, 1000); i++) {
+				col.put(defaultCtx.get(i), -i);
 			}
-			else if(collectionClass.equals(com.badlogic.gdx.utils.OrderedSet.class)) {
-					long startTime = System.currentTimeMillis();
-					Constructor<?> constructor = collectionClass.getDeclaredConstructor((Class<?>[]) null);
-					constructor.setAccessible(true);
-				    gdxSet = (com.badlogic.gdx.utils.OrderedSet<String>) constructor.newInstance();
-					System.out.println("Performances of com.badlogic.gdx.utils.OrderedSet populated with "
-							+ populateSize + " elt(s)");
-					System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+			// kept trivial so that only the map is measured, the length of the
+			// String keys as in the original map benchmark
+			final Function<Object, Integer> mapping = new Function<Object, Integer>() {
+				@Override
+				public Integer apply(Object key) {
+					return key instanceof String ? ((String) key).length() : 1;
+				}
+			};
+			final BiFunction<Integer, Integer, Integer> sum = new BiFunction<Integer, Integer, Integer>() {
+				@Override
+				public Integer apply(Integer a, Integer b) {
+					return a + b;
+				}
+			};
+
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					mapAdapter.put(extraKeys.get(i), indexes[i]);
+				}
+			}, populateSize, "put " + populateSize + " entries");
+
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					mapAdapter.get(defaultCtx.get(mapLookups[i]));
+				}
+			}, populateSize, "get " + populateSize + " times (hit)");
+
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					mapAdapter.get(extraKeys.get(i));
+				}
+			}, populateSize, "get " + populateSize + " times (miss)");
+
+			execute(new BenchRunnable() {
+				private Object[] removed;
 
-					// some collection used in some benchmark cases
-					final Array<String> col = new Array<>();
-					for (int i = 0; i < 1000; i++) {
-						col.add(defaultCtx.get(i & 31));
+				@Override
+				public void setUp(int loop) {
+					// the key at size - 1 - i once the i previous ones are
+					// removed, as when the size was read at every call
+					removed = new Object[loop];
+					int size = mapAdapter.size();
+					for (int i = 0; i < loop; i++) {
+						removed[i] = defaultCtx.get(Math.max(0, size - 1 - 2 * i));
 					}
+				}
 
-					// Collection benchmark
-				executeGDX(new BenchRunnable() {
-						@Override
-						public void run(int i) {
-							gdxSet.add(Integer.toBinaryString(populateSize + i));
-						}
-					}, populateSize, "add " + populateSize + " elements");
+				@Override
+				public void run(int i) {
+					mapAdapter.remove(removed[i]);
+				}
+			}, Math.max(1, populateSize / 10), "remove " + Math.max(1, populateSize / 10) + " entries given key");
 
-				executeGDX(new BenchRunnable() {
-						@Override
-						public void run(int i) {
-							gdxSet.remove(defaultCtx.get(gdxSet.size - 1 - i));
-						}
-					}, Math.max(1, populateSize / 10), "remove " + Math.max(1, populateSize / 10) + " elements given Object");
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					mapAdapter.putAll(col);
+				}
+			}, Math.min(populateSize, 1000), "putAll " + Math.min(populateSize, 1000) + " times " + col.size()
+					+ " entries");
 
-				executeGDX(new BenchRunnable() {
-						@Override
-						public void run(int i) {
-							gdxSet.addAll(col);
-						}
-					}, Math.min(populateSize, 1000), "addAll " + Math.min(populateSize, 1000) + " times " + col.size
-							+ " elements");
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					// values are the indexes in the context, so this one is
+					// always missing and the whole map is searched
+					mapAdapter.containsValue(missingValues[i]);
+				}
+			}, Math.min(populateSize, 1000), "containsValue " + Math.min(populateSize, 1000) + " times");
 
-				executeGDX(new BenchRunnable() {
-						@Override
-						public void run(int i) {
-							gdxSet.contains(defaultCtx.get(gdxSet.size - i - 1));
-						}
-					}, Math.min(populateSize, 1000), "contains " + Math.min(populateSize, 1000) + " times");
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					sink += mapAdapter.iterateEntries();
+				}
+			}, Math.min(populateSize, 100), "entrySet iteration " + Math.min(populateSize, 100) + " times");
 
-				executeGDX(new BenchRunnable() {
-						@Override
-						public void run(int i) {
-							Iterator<String> it = gdxSet.iterator();
-							if (it.hasNext())
-								it.next();
-						}
-					}, populateSize, "iterator " + populateSize + " times");
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					sink += mapAdapter.iterateKeys();
+				}
+			}, Math.min(populateSize, 100), "keySet iteration " + Math.min(populateSize, 100) + " times");
 
-				executeGDX(new BenchRunnable() {
-						@Override
-						public void run(int i) {
-							gdxSet.orderedItems().toArray();
-						}
-					}, Math.min(populateSize, 5000), "toArray " + Math.min(populateSize, 5000) + " times");
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					sink += mapAdapter.iterateValues();
+				}
+			}, Math.min(populateSize, 100), "values iteration " + Math.min(populateSize, 100) + " times");
 
-					executeGDX(new BenchRunnable() {
-						@Override
-						public void run(int i) {
-							gdxSet.clear();
-						}
-					}, 1, "clear");
-					
-				System.out.println("Benchmark done in " + ((double) (System.currentTimeMillis() - startTime)) / 1000 + "s");
-				System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
-				// free memory
-				gdxSet.clear();
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					// one key out of two is already present
+					mapAdapter.computeIfAbsent((i & 1) == 0 ? defaultCtx.get(mapLookups[i]) : extraKeys.get(i), mapping);
 				}
+			}, populateSize, "computeIfAbsent " + populateSize + " times (half present)");
 
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					mapAdapter.merge(defaultCtx.get(mapLookups[i]), 1, sum);
+				}
+			}, populateSize, "merge " + populateSize + " times");
+
+			execute(new BenchRunnable() {
+				@Override
+				public void run(int i) {
+					mapAdapter.clear();
+				}
+			}, 1, "clear map");
+
+			System.out.println("Benchmark done in " + ((double) (System.currentTimeMillis() - startTime)) / 1000 + "s");
+			System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+			// free memory
+			mapAdapter.clear();
 		} catch (Exception e) {
-			System.err.println("Failed running benchmark on class " + collectionClass.getCanonicalName());
+			System.err.println("Failed running benchmark on class " + mapClass.getCanonicalName());
 			e.printStackTrace();
 		}
-		collection = null;
-		list = null;
-		heavyGc();
+		mapAdapter = null;
+		subject = null;
+		GcMeter.settle(SETTLE_TIMEOUT);
+	}
+
+	/**
+	 * Run the primitive benchmark on the given int collection or int to int
+	 * map, then measure its memory usage per element. Use
+	 * {@link java.util.ArrayList}, {@link java.util.HashSet} or
+	 * {@link java.util.HashMap} to get the boxed reference.
+	 *
+	 * @param clazz a class supported by {@link IntAdapters}
+	 */
+	public void runPrimitive(Class<?> clazz) {
+		try {
+			long startTime = System.currentTimeMillis();
+			subject = IntAdapters.create(clazz);
+			intAdapter = subject instanceof IntCollectionAdapter ? (IntCollectionAdapter) subject : null;
+			intMapAdapter = subject instanceof IntMapAdapter ? (IntMapAdapter) subject : null;
+			System.out.println("Performances of " + subject.getImplementationClass().getCanonicalName()
+					+ " populated with " + populateSize + " int(s)");
+			System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+
+			if (intAdapter != null) {
+				execute(new BenchRunnable() {
+					@Override
+					public void run(int i) {
+						intAdapter.add(populateSize + i);
+					}
+				}, populateSize, "int add " + populateSize + " elements");
+
+				execute(new BenchRunnable() {
+					@Override
+					public void run(int i) {
+						intAdapter.remove(intAdapter.size() - 1 - i);
+					}
+				}, Math.max(1, populateSize / 10), "int remove " + Math.max(1, populateSize / 10) + " elements");
+
+				execute(new BenchRunnable() {
+					@Override
+					public void run(int i) {
+						intAdapter.contains(populateSize - 1 - i);
+					}
+				}, Math.min(populateSize, 1000), "int contains " + Math.min(populateSize, 1000) + " times");
+
+				execute(new BenchRunnable() {
+					@Override
+					public void run(int i) {
+						sink += (int) intAdapter.iterate();
+					}
+				}, Math.min(populateSize, 100), "int iteration " + Math.min(populateSize, 100) + " times");
+			} else {
+				execute(new BenchRunnable() {
+					@Override
+					public void run(int i) {
+						intMapAdapter.put(populateSize + i, i);
+					}
+				}, populateSize, "int put " + populateSize + " entries");
+
+				execute(new BenchRunnable() {
+					@Override
+					public void run(int i) {
+						sink += intMapAdapter.get(i, -1);
+					}
+				}, populateSize, "int get " + populateSize + " times (hit)");
+
+				execute(new BenchRunnable() {
+					@Override
+					public void run(int i) {
+						sink += intMapAdapter.get(populateSize + i, -1);
+					}
+				}, populateSize, "int get " + populateSize + " times (miss)");
+
+				execute(new BenchRunnable() {
+					@Override
+					public void run(int i) {
+						intMapAdapter.remove(intMapAdapter.size() - 1 - i);
+					}
+				}, Math.max(1, populateSize / 10), "int remove " + Math.max(1, populateSize / 10) + " entries");
+
+				execute(new BenchRunnable() {
+					@Override
+					public void run(int i) {
+						sink += (int) intMapAdapter.iterate();
+					}
+				}, Math.min(populateSize, 100), "int map iteration " + Math.min(populateSize, 100) + " times");
+			}
+
+			// memory usage, boxed values are part of the structure so nothing is excluded
+			StructureAdapter instance = IntAdapters.create(clazz);
+			populateInts(instance);
+			ObjectGraphWalker.Footprint footprint = new ObjectGraphWalker(Collections.emptyList())
+					.walk(instance.getTarget());
+			double elementSize = footprint.getTotalBytes() / (double) populateSize;
+			System.out.println("Memory usage : " + elementSize + " bytes per element"
+					+ (ObjectGraphWalker.isExact() ? "" : " (estimated)"));
+			elementMemoryResults.put(clazz, elementSize);
+
+			System.out.println("Benchmark done in " + ((double) (System.currentTimeMillis() - startTime)) / 1000 + "s");
+			System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+		} catch (Exception e) {
+			System.err.println("Failed running benchmark on class " + clazz.getCanonicalName());
+			e.printStackTrace();
+		}
+		intAdapter = null;
+		intMapAdapter = null;
+		subject = null;
+		GcMeter.settle(SETTLE_TIMEOUT);
 	}
 
 	/**
@@ -377,126 +1072,342 @@ public class Benchmark {
 	 * @param loop number of time to run the code
 	 * @param taskName name displayed at the end of the task
 	 */
-	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@SuppressWarnings("unchecked")
 	private void execute(BenchRunnable run, int loop, String taskName) {
+		if (taskNames != null) {
+			taskNames.add(taskName);
+			return;
+		}
+		if (taskFilter != null && !taskFilter.equals(taskName)) {
+			return;
+		}
+		Calibration.calibrate();
+		long timerOverhead = Calibration.getTimerOverhead();
+		double loopOverhead = Calibration.getLoopOverhead();
 		System.out.print(taskName + " ... ");
-		// set default context
-		collection.clear();
-		collection.addAll(defaultCtx);
-		// warmup
-		warmUp();
-		isTimeout = false;
-		// timeout timer
-		Timer timer = new Timer((int) timeout, new ActionListener() {
-			@Override
-			public void actionPerformed(ActionEvent e) {
-				isTimeout = true;
-				// to raise a ConcurrentModificationException or a
-				// NoSuchElementException to interrupt internal work in the List
-				collection.clear();
+		long[] times = new long[iterations];
+		long allocated = 0;
+		long gcCount = 0;
+		long gcTime = 0;
+		// figures of the last iteration, the interrupted one on timeout
+		long lastAllocated = 0;
+		long lastGcCount = 0;
+		long lastGcTime = 0;
+		int measured = 0;
+		int i = 0;
+		LatencyHistogram latency = recordLatency ? new LatencyHistogram() : null;
+		// calls timed together for the latencies, sized from the time per
+		// call of the first iteration, which is not recorded, so that cheap
+		// calls are not timed one by one
+		int batch = 1;
+		// usual time of a call, the first iteration's mean then the median
+		long typical = Long.MAX_VALUE;
+		boolean isTimeout = false;
+		while (measured < iterations && !isTimeout) {
+			// set default context
+			populate();
+			// warmup
+			warmUp();
+			// arguments depending on the populated structure, not timed
+			run.setUp(loop);
+			long startAllocated = AllocationMeter.currentThreadAllocatedBytes();
+			long startGcCount = GcMeter.collectionCount();
+			long startGcTime = GcMeter.collectionTime();
+			// timeout watchdog, the loop stops at the next call once it fires;
+			// it may fire after the end of the loop, even after the alarm is
+			// cancelled, so each iteration has its own flag, only read while
+			// the loop runs
+			final AtomicBoolean expired = new AtomicBoolean();
+			ScheduledFuture<?> alarm = WATCHDOG.schedule(new Runnable() {
+				@Override
+				public void run() {
+					expired.set(true);
+				}
+			}, timeout, TimeUnit.MILLISECONDS);
+			int batches = 0;
+			long startTime = System.nanoTime();
+			if (latency == null || (measured == 0 && iterations > 1)) {
+				i = timedLoop(run, 0, loop, expired);
+			} else {
+				for (i = 0; i < loop && !expired.get(); batches++) {
+					long batchStart = System.nanoTime();
+					int end = timedLoop(run, i, Math.min(loop, i + batch), expired);
+					if (end > i) {
+						long batchTime = System.nanoTime() - batchStart - timerOverhead
+								- Math.round(loopOverhead * (end - i));
+						// all the calls of the batch but one take the usual
+						// time, the remainder goes to a single call so that a
+						// spike keeps its size
+						long floor = Math.max(0, Math.min(batchTime / (end - i), typical));
+						if (end - i > 1) {
+							latency.record(floor, end - i - 1);
+						}
+						latency.record(batchTime - floor * (end - i - 1));
+					}
+					i = end;
+				}
 			}
-		});
-		timer.setRepeats(false);
-		timer.start();
-		long startTime = System.nanoTime();
-		int i;
-		for (i = 0; i < loop && !isTimeout; i++) {
+			long endTime = System.nanoTime();
+			lastGcCount = GcMeter.collectionCount() - startGcCount;
+			lastGcTime = GcMeter.collectionTime() - startGcTime;
+			lastAllocated = AllocationMeter.currentThreadAllocatedBytes() - startAllocated;
+			gcCount += lastGcCount;
+			gcTime += lastGcTime;
+			allocated += lastAllocated;
+			alarm.cancel(false);
+			// the alarm may fire right after the last call, or even now, only
+			// the calls left undone make a timeout
+			isTimeout = i < loop;
+			// without the cost of the loop and of the two timer calls of each
+			// batch, at least 1ns for calls cheaper than the calibration can
+			// tell
+			times[measured++] = Math.max(1, endTime - startTime - Math.round(loopOverhead * i) - 2 * timerOverhead
+					* batches);
+			if (latency != null && batches == 0 && i > 0) {
+				double timePerCall = Math.max(1.0, (double) times[measured - 1] / i);
+				batch = (int) Math.max(1,
+						Math.min(loop, Math.ceil(Calibration.getMinBatchTime() / timePerCall)));
+				typical = Math.round(timePerCall);
+			} else if (latency != null && latency.getCount() > 0) {
+				typical = latency.getValueAtPercentile(50);
+			}
+			// restore default context, with a new instance so that the
+			// capacity grown by this iteration does not help the next one
 			try {
-				run.run(i);
-			} catch (Exception e) {
-				// on purpose so ignore it
+				subject.renew();
+				// update the reference
+				if (subject.getTarget() instanceof List) {
+					list = (List<Object>) subject.getTarget();
+				}
+			} catch (Exception e1) {
+				e1.printStackTrace();
 			}
 		}
-		timer.stop();
-		long time = isTimeout ? timeout * 1000000 : System.nanoTime() - startTime;
-		System.out.println((isTimeout ? "Timeout (>" + time + "ns) after " + i + " loop(s)" : time + "ns"));
-		// restore default context,
-		// the collection instance might have been
-		// corrupted by the timeout so create a new instance
-		try {
-			Constructor<? extends Collection> constructor = collection.getClass().getDeclaredConstructor(
-					(Class<?>[]) null);
-			constructor.setAccessible(true);
-			collection = constructor.newInstance();
-			// update the reference
-			if (collection instanceof List) {
-				list = (List<String>) collection;
+		Statistics statistics = new Statistics(Arrays.copyOf(times, measured), trimOutliers);
+		// on timeout, the figures of the interrupted iteration, for its
+		// completed loops
+		long time = isTimeout ? times[measured - 1] : Math.round(statistics.getMean());
+		if (isTimeout) {
+			allocated = lastAllocated;
+			gcCount = lastGcCount;
+			gcTime = lastGcTime;
+		}
+		int averaged = isTimeout ? 1 : measured;
+		BenchResult result = new BenchResult(taskName, subject.getImplementationClass(), time, statistics, loop, i,
+				isTimeout, AllocationMeter.isSupported() ? allocated / averaged : -1, (double) gcCount / averaged,
+				(double) gcTime / averaged, latency);
+		if (isTimeout) {
+			System.out.print("Timeout after " + i + "/" + loop + " loop(s) in " + time + "ns");
+		} else if (statistics.getCount() > 1) {
+			System.out.print(time + "ns +/- " + Math.round(statistics.getCi99()) + "ns (median "
+					+ Math.round(statistics.getMedian()) + "ns, sd " + Math.round(statistics.getStdDev()) + "ns, p99 "
+					+ statistics.getP99() + "ns, " + statistics.getCount() + " iterations"
+					+ (statistics.getOutliers() > 0 ? ", " + statistics.getOutliers() + " outlier(s) rejected" : "")
+					+ ")");
+		} else {
+			System.out.print(time + "ns");
+		}
+		if (result.getTimePerCall() >= 0) {
+			System.out.print(", " + String.format("%.1f", result.getTimePerCall()) + "ns per call, "
+					+ String.format("%.1f", result.getThroughput()) + " calls/s");
+		}
+		if (result.getAllocatedBytesPerCall() >= 0) {
+			System.out.print(", " + String.format("%.1f", result.getAllocatedBytesPerCall())
+					+ " bytes allocated per call");
+		}
+		if (result.getGcCount() > 0) {
+			System.out.print(", " + String.format("%.1f", result.getGcCount()) + " GC(s) taking "
+					+ String.format("%.1f", result.getGcTime()) + "ms");
+			if (isGcHeavy(result)) {
+				System.out.print(" (" + Math.round(result.getGcTimeFraction() * 100) + "% of the time in GC)");
 			}
-		} catch (Exception e1) {
-			e1.printStackTrace();
+		}
+		System.out.println();
+		if (latency != null) {
+			System.out.println("    latency per call " + latency);
 		}
 
 		// store the results for display
-		Map<Class<?>, Long> currentBench = benchResults.get(taskName);
+		Map<Class<?>, BenchResult> currentBench = benchResults.get(taskName);
 		if (currentBench == null) {
 			currentBench = new HashMap<>();
 			benchResults.put(taskName, currentBench);
 		}
-		currentBench.put(collection.getClass(), time);
-		// little gc to clean up all the stuff
-		System.gc();
+		currentBench.put(subject.getImplementationClass(), result);
+		// clean up all the stuff before the next task
+		GcMeter.settle(SETTLE_TIMEOUT);
 	}
+
 	/**
-	 * Execute the current run code loop times.
+	 * Run the task from the given loop index until the loop is stopped
 	 *
-	 * @param run code to run
-	 * @param loop number of time to run the code
-	 * @param taskName name displayed at the end of the task
+	 * @param run task
+	 * @param from first loop index
+	 * @param to loop index to stop at, excluded
+	 * @param expired set by the watchdog to stop the loop at the next call
+	 * @return the loop index reached
 	 */
-	@SuppressWarnings({ "unchecked", "rawtypes" })
-	private void executeGDX(BenchRunnable run, int loop, String taskName) {
-		System.out.print(taskName + " ... ");
-		// set default context
-		gdxSet.clear();
-		gdxSet.addAll(defaultCtx.toArray(new String[0]));
-		// warmup
-		warmUpGDX();
-		isTimeout = false;
-		// timeout timer
-		Timer timer = new Timer((int) timeout, new ActionListener() {
-			@Override
-			public void actionPerformed(ActionEvent e) {
-				isTimeout = true;
-				// to raise a ConcurrentModificationException or a
-				// NoSuchElementException to interrupt internal work in the List
-				gdxSet.clear();
-			}
-		});
-		timer.setRepeats(false);
-		timer.start();
-		long startTime = System.nanoTime();
+	private static int timedLoop(BenchRunnable run, int from, int to, AtomicBoolean expired) {
 		int i;
-		for (i = 0; i < loop && !isTimeout; i++) {
+		for (i = from; i < to && !expired.get(); i++) {
 			try {
 				run.run(i);
 			} catch (Exception e) {
 				// on purpose so ignore it
 			}
 		}
-		timer.stop();
-		long time = isTimeout ? timeout * 1000000 : System.nanoTime() - startTime;
-		System.out.println((isTimeout ? "Timeout (>" + time + "ns) after " + i + " loop(s)" : time + "ns"));
-		// restore default context,
-		// the collection instance might have been
-		// corrupted by the timeout so create a new instance
-		try {
-			Constructor<? extends com.badlogic.gdx.utils.OrderedSet> constructor = gdxSet.getClass().getDeclaredConstructor(
-					(Class<?>[]) null);
-			constructor.setAccessible(true);
-			gdxSet = constructor.newInstance();
-		} catch (Exception e1) {
-			e1.printStackTrace();
-		}
+		return i;
+	}
 
-		// store the results for display
-		Map<Class<?>, Long> currentBench = benchResults.get(taskName);
+	/**
+	 * Store a result measured elsewhere, for instance by a forked JVM, as if
+	 * it was measured by this benchmark
+	 *
+	 * @param result task result
+	 */
+	void addResult(BenchResult result) {
+		Map<Class<?>, BenchResult> currentBench = benchResults.get(result.getTask());
 		if (currentBench == null) {
 			currentBench = new HashMap<>();
-			benchResults.put(taskName, currentBench);
+			benchResults.put(result.getTask(), currentBench);
+		}
+		currentBench.put(result.getImplementation(), result);
+	}
+
+	/**
+	 * Names of the tasks {@link #runSuite(Class)} would measure on the given
+	 * collection, nothing is populated nor timed
+	 *
+	 * @param collectionClass the collection
+	 * @return task names, in the run order
+	 */
+	public List<String> listTasks(Class<?> collectionClass) {
+		taskNames = new ArrayList<>();
+		try {
+			if (traces.isEmpty()) {
+				run(collectionClass);
+			}
+			for (File trace : traces) {
+				taskNames.add(replayTaskName(trace.getName()));
+			}
+			return taskNames;
+		} finally {
+			taskNames = null;
+		}
+	}
+
+	/**
+	 * @return every task result, sorted by task name then implementation
+	 */
+	public List<BenchResult> getResults() {
+		List<String> taskNames = new ArrayList<>(benchResults.keySet());
+		Collections.sort(taskNames);
+		List<BenchResult> results = new ArrayList<>();
+		for (String taskName : taskNames) {
+			List<BenchResult> taskResults = new ArrayList<>(benchResults.get(taskName).values());
+			Collections.sort(taskResults, new Comparator<BenchResult>() {
+				@Override
+				public int compare(BenchResult o1, BenchResult o2) {
+					return o1.getImplementation().getName().compareTo(o2.getImplementation().getName());
+				}
+			});
+			results.addAll(taskResults);
 		}
-		currentBench.put(gdxSet.getClass(), time);
-		// little gc to clean up all the stuff
-		System.gc();
+		return results;
+	}
+
+	/**
+	 * Write every result as CSV, see {@link ResultExporter#writeCsv(List, File)}
+	 *
+	 * @param file destination file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void exportCsv(File file) throws IOException {
+		ResultExporter.writeCsv(getResults(), file);
+		System.out.println("Results written to " + file.getAbsolutePath());
+	}
+
+	/**
+	 * Write every result, memory ones included, as JSON
+	 *
+	 * @param file destination file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void exportJson(File file) throws IOException {
+		ResultExporter.writeJson(populateSize, timeout, workload.toString(), getResults(), memoryResults, elementMemoryResults, file);
+		System.out.println("Results written to " + file.getAbsolutePath());
+	}
+
+	/**
+	 * @return the workload, for the console output, empty for the original one
+	 */
+	private String workloadDescription() {
+		return workload.isLegacy() ? "" : " (" + workload + ")";
+	}
+
+	/**
+	 * @param headless true to skip the Swing display of the results, the
+	 *            default is true on machines without screen
+	 */
+	public void setHeadless(boolean headless) {
+		this.headless = headless;
+	}
+
+	/**
+	 * @param recordLatency true to time every call into a histogram, reported
+	 *            as p50, p90, p99, p99.9 and max; the timer calls make the
+	 *            total times a bit slower
+	 */
+	public void setRecordLatency(boolean recordLatency) {
+		this.recordLatency = recordLatency;
+	}
+
+	/**
+	 * @param isolateTasks true to run each task of {@link #runSuite(Class)} in
+	 *            classes of its own, the default, false to run all of them in
+	 *            the classes of this benchmark
+	 */
+	public void setIsolateTasks(boolean isolateTasks) {
+		this.isolateTasks = isolateTasks;
+	}
+
+	/**
+	 * @param taskFilter name of the only task to run, null to run all of them
+	 */
+	public void setTaskFilter(String taskFilter) {
+		this.taskFilter = taskFilter;
+	}
+
+	/**
+	 * @param iterations number of measurement iterations of each task, 5 by
+	 *            default
+	 */
+	public void setIterations(int iterations) {
+		this.iterations = Math.max(1, iterations);
+	}
+
+	/**
+	 * @param gcThreshold share of the measured time spent in GC, between 0 and
+	 *            1, above which a task is flagged, 0.1 by default
+	 */
+	public void setGcThreshold(double gcThreshold) {
+		this.gcThreshold = gcThreshold;
+	}
+
+	/**
+	 * @param result task result
+	 * @return true if the task spent more than the threshold in GC
+	 */
+	private boolean isGcHeavy(BenchResult result) {
+		return !result.isTimeout() && result.getGcTimeFraction() > gcThreshold;
+	}
+
+	/**
+	 * @param trimOutliers true to reject the iterations outside of Tukey's
+	 *            fences before computing the statistics
+	 */
+	public void setTrimOutliers(boolean trimOutliers) {
+		this.trimOutliers = trimOutliers;
 	}
 
 	/**
@@ -504,22 +1415,46 @@ public class Benchmark {
 	 */
 	@SuppressWarnings("serial")
 	public void displayBenchmarkResults() {
+		if (headless) {
+			System.out.println("Headless mode, benchmark results not displayed");
+			return;
+		}
 		List<ChartPanel> chartPanels = new ArrayList<>();
 		// sort task by names
 		List<String> taskNames = new ArrayList<>(benchResults.keySet());
 		Collections.sort(taskNames);
 		// browse task name, 1 chart per task
 		for (String taskName : taskNames) {
-			// time by class
-			Map<Class<?>, Long> clazzResult = benchResults.get(taskName);
+			// time per call by class, with the 99% confidence interval as
+			// error bar, so that tasks with different loop counts compare
+			Map<Class<?>, Double> clazzResult = new HashMap<>();
+			Map<Class<?>, Double> clazzError = new HashMap<>();
+			for (BenchResult result : benchResults.get(taskName).values()) {
+				// timed out tasks are plotted at the pace of their completed calls
+				if (result.getTimePerCall() < 0) {
+					continue;
+				}
+				clazzResult.put(result.getImplementation(), result.getTimePerCall());
+				clazzError.put(result.getImplementation(),
+						result.isTimeout() ? 0.0 : result.getStatistics().getCi99() / result.getCompletedLoops());
+			}
+			if (clazzResult.isEmpty()) {
+				continue;
+			}
 
-			ChartPanel chartPanel = createChart(taskName, "Time (ns)", clazzResult,
+			ChartPanel chartPanel = createChart(taskName, "Time per call (ns)", clazzResult, clazzError,
 					new StandardCategoryItemLabelGenerator() {
 						@Override
 						public String generateLabel(CategoryDataset dataset, int row, int column) {
 							String label = " " + dataset.getRowKey(row).toString();
-							if (dataset.getValue(row, column).equals(timeout * 1000000)) {
-								label += " (Timeout)";
+							BenchResult result = findResult(taskName, dataset.getRowKey(row).toString());
+							if (result == null) {
+								return label;
+							}
+							if (result.isTimeout()) {
+								label += " (Timeout, " + String.format("%.0f", result.getThroughput()) + " calls/s)";
+							} else if (isGcHeavy(result)) {
+								label += " (GC " + Math.round(result.getGcTimeFraction() * 100) + "%)";
 							}
 							return label;
 						}
@@ -534,8 +1469,98 @@ public class Benchmark {
 		}
 		JFrame frame = new JFrame("Collection Implementations Benchmark");
 		frame.getContentPane().add(
-				new JLabel("Collection Implementations Benchmark. Populate size : " + populateSize + ", timeout : "
-						+ timeout + "ms"), BorderLayout.NORTH);
+				new JLabel("Collection Implementations Benchmark. Populate size : " + populateSize
+						+ workloadDescription() + ", timeout : " + timeout + "ms"), BorderLayout.NORTH);
+		frame.getContentPane().add(mainPanel, BorderLayout.CENTER);
+		frame.setSize(900, 500);
+		frame.setLocationRelativeTo(null);
+		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		frame.setVisible(true);
+	}
+
+	/**
+	 * @param taskName task name
+	 * @param implementation implementation class name
+	 * @return the result of the task on that implementation, null if not run
+	 */
+	private BenchResult findResult(String taskName, String implementation) {
+		for (BenchResult result : benchResults.get(taskName).values()) {
+			if (result.getImplementation().getName().equals(implementation)) {
+				return result;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Display the calls per second of each task, timed out tasks included with
+	 * the throughput achieved before their interruption
+	 */
+	public void displayThroughputResults() {
+		if (headless) {
+			System.out.println("Headless mode, throughput results not displayed");
+			return;
+		}
+		List<ChartPanel> chartPanels = new ArrayList<>();
+		List<String> taskNames = new ArrayList<>(benchResults.keySet());
+		Collections.sort(taskNames);
+		for (String taskName : taskNames) {
+			Map<Class<?>, Double> clazzResult = new HashMap<>();
+			for (BenchResult result : benchResults.get(taskName).values()) {
+				clazzResult.put(result.getImplementation(), result.getThroughput());
+			}
+			chartPanels.add(createChart(taskName, "Calls per second", clazzResult, null));
+		}
+		JPanel mainPanel = new JPanel(new GridLayout(chartPanels.size() / 5, 5, 5, 5));
+		for (ChartPanel chart : chartPanels) {
+			mainPanel.add(chart);
+		}
+		JFrame frame = new JFrame("Collection Implementations Throughput");
+		frame.getContentPane().add(
+				new JLabel("Collection Implementations Throughput. Populate size : " + populateSize),
+				BorderLayout.NORTH);
+		frame.getContentPane().add(mainPanel, BorderLayout.CENTER);
+		frame.setSize(900, 500);
+		frame.setLocationRelativeTo(null);
+		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		frame.setVisible(true);
+	}
+
+	/**
+	 * Display the bytes allocated per call of each task, timed out tasks are
+	 * left out
+	 */
+	public void displayAllocationResults() {
+		if (headless) {
+			System.out.println("Headless mode, allocation results not displayed");
+			return;
+		}
+		if (!AllocationMeter.isSupported()) {
+			System.out.println("Allocations are not counted on this JVM");
+			return;
+		}
+		List<ChartPanel> chartPanels = new ArrayList<>();
+		List<String> taskNames = new ArrayList<>(benchResults.keySet());
+		Collections.sort(taskNames);
+		for (String taskName : taskNames) {
+			Map<Class<?>, Double> clazzResult = new HashMap<>();
+			for (BenchResult result : benchResults.get(taskName).values()) {
+				if (!result.isTimeout()) {
+					clazzResult.put(result.getImplementation(), result.getAllocatedBytesPerCall());
+				}
+			}
+			if (!clazzResult.isEmpty()) {
+				chartPanels.add(createChart(taskName, "Allocated bytes per call", clazzResult, null));
+			}
+		}
+		JPanel mainPanel = new JPanel(new GridLayout(chartPanels.size() / 5, 5, 5, 5));
+		for (ChartPanel chart : chartPanels) {
+			mainPanel.add(chart);
+		}
+		JFrame frame = new JFrame("Collection Implementations Allocations");
+		frame.getContentPane().add(
+				new JLabel("Collection Implementations Allocations. Populate size : " + populateSize),
+				BorderLayout.NORTH);
 		frame.getContentPane().add(mainPanel, BorderLayout.CENTER);
 		frame.setSize(900, 500);
 		frame.setLocationRelativeTo(null);
@@ -543,28 +1568,148 @@ public class Benchmark {
 		frame.setVisible(true);
 	}
 
+	/**
+	 * Fill the tested structure with the default context, maps associate each
+	 * key with its index in the context
+	 */
+	private void populate() {
+		subject.clear();
+		if (replaying) {
+			return;
+		}
+		if (subject instanceof MapAdapter) {
+			for (int i = 0; i < populateSize; i++) {
+				mapAdapter.put(defaultCtx.get(i), i);
+			}
+		} else if (subject instanceof CollectionAdapter) {
+			adapter.addAll(defaultCtx);
+		} else {
+			populateInts(subject);
+		}
+	}
+
+	/**
+	 * Fill a structure of the primitive benchmark with the ints 0 to
+	 * populateSize - 1, maps associate each int with itself
+	 *
+	 * @param structure an int collection or int to int map adapter
+	 */
+	private void populateInts(StructureAdapter structure) {
+		if (structure instanceof IntMapAdapter) {
+			IntMapAdapter map = (IntMapAdapter) structure;
+			for (int i = 0; i < populateSize; i++) {
+				map.put(i, i);
+			}
+		} else {
+			IntCollectionAdapter collection = (IntCollectionAdapter) structure;
+			for (int i = 0; i < populateSize; i++) {
+				collection.add(i);
+			}
+		}
+	}
+
 	/**
 	 * Do some operation to be sure that the internal structure is allocated
 	 */
 	@SuppressWarnings("rawtypes")
 	private void warmUp() {
-		collection.remove(collection.iterator().next());
-		if (collection instanceof List) {
-			collection.remove(0);
-			((List) collection).indexOf(((List) collection).get(0));
+		if (replaying) {
+			// the trace may start with anything, the empty structure is left as is
+			return;
+		}
+		if (subject instanceof MapAdapter) {
+			// put back what is removed, so that the map still holds the
+			// whole default context
+			mapAdapter.put(defaultCtx.get(0), mapAdapter.remove(defaultCtx.get(0)));
+			mapAdapter.iterateEntries();
+			return;
+		}
+		if (subject instanceof IntMapAdapter) {
+			intMapAdapter.get(0, -1);
+			intMapAdapter.iterate();
+			return;
+		}
+		if (subject instanceof IntCollectionAdapter) {
+			intAdapter.contains(0);
+			intAdapter.iterate();
+			return;
 		}
-		collection.iterator();
-		collection.toArray();
+		adapter.remove(adapter.iterator().next());
+		if (adapter.getTarget() instanceof List) {
+			adapter.remove(0);
+			((List) adapter.getTarget()).indexOf(((List) adapter.getTarget()).get(0));
+		}
+		adapter.iterator();
+		adapter.toArray();
 	}
 
 	/**
-	 * Do some operation to be sure that the internal structure is allocated
+	 * Display the p99.9 latency of every task recorded with
+	 * {@link #setRecordLatency(boolean)}, labelled with the other percentiles
 	 */
-	@SuppressWarnings("rawtypes")
-	private void warmUpGDX() {
-		gdxSet.remove(gdxSet.iterator().next());
-		gdxSet.iterator();
-		gdxSet.orderedItems().toArray();
+	@SuppressWarnings("serial")
+	public void displayLatencyResults() {
+		if (headless) {
+			System.out.println("Headless mode, latency results not displayed");
+			return;
+		}
+		List<ChartPanel> chartPanels = new ArrayList<>();
+		List<String> taskNames = new ArrayList<>(benchResults.keySet());
+		Collections.sort(taskNames);
+		for (final String taskName : taskNames) {
+			Map<Class<?>, Long> clazzResult = new HashMap<>();
+			for (BenchResult result : benchResults.get(taskName).values()) {
+				if (result.getLatency() != null && result.getLatency().getCount() > 0) {
+					clazzResult.put(result.getImplementation(), result.getLatency().getValueAtPercentile(99.9));
+				}
+			}
+			if (!clazzResult.isEmpty()) {
+				chartPanels.add(createChart(taskName, "p99.9 latency (ns)", clazzResult,
+						new StandardCategoryItemLabelGenerator() {
+							@Override
+							public String generateLabel(CategoryDataset dataset, int row, int column) {
+								String implementation = dataset.getRowKey(row).toString();
+								LatencyHistogram latency = findResult(taskName, implementation).getLatency();
+								return " " + implementation + " (p50 " + latency.getValueAtPercentile(50)
+										+ ", p99 " + latency.getValueAtPercentile(99) + ", max "
+										+ latency.getMax() + ")";
+							}
+						}));
+			}
+		}
+		if (chartPanels.isEmpty()) {
+			System.out.println("No latency recorded");
+			return;
+		}
+		JPanel mainPanel = new JPanel(new GridLayout(0, 5, 5, 5));
+		for (ChartPanel chart : chartPanels) {
+			mainPanel.add(chart);
+		}
+		JFrame frame = new JFrame("Collection Implementations Latencies");
+		frame.getContentPane().add(
+				new JLabel("Collection Implementations Latencies per call. Populate size : " + populateSize),
+				BorderLayout.NORTH);
+		frame.getContentPane().add(mainPanel, BorderLayout.CENTER);
+		frame.setSize(900, 500);
+		frame.setLocationRelativeTo(null);
+		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		frame.setVisible(true);
+	}
+
+	/**
+	 * Create a chartpanel
+	 * 
+	 * @param title title
+	 * @param dataName name of the data
+	 * @param clazzResult data mapped by classes
+	 * @param catItemLabelGenerator label generator, null to display the class
+	 *            names
+	 * @return the chartPanel
+	 */
+	private ChartPanel createChart(String title, String dataName,
+			Map<Class<?>, ? extends Number> clazzResult,
+			CategoryItemLabelGenerator catItemLabelGenerator) {
+		return createChart(title, dataName, clazzResult, null, catItemLabelGenerator);
 	}
 
 	/**
@@ -573,13 +1718,16 @@ public class Benchmark {
 	 * @param title title
 	 * @param dataName name of the data
 	 * @param clazzResult data mapped by classes
-	 * @param catItemLabelGenerator label generator
+	 * @param clazzError half-length of the error bars mapped by classes, null
+	 *            for no error bars
+	 * @param catItemLabelGenerator label generator, null to display the class
+	 *            names
 	 * @return the chartPanel
 	 */
 	@SuppressWarnings("serial")
 	private ChartPanel createChart(String title, String dataName,
-			Map<Class<?>, Long> clazzResult,
-			AbstractCategoryItemLabelGenerator catItemLabelGenerator) {
+			Map<Class<?>, ? extends Number> clazzResult, Map<Class<?>, ? extends Number> clazzError,
+			CategoryItemLabelGenerator catItemLabelGenerator) {
 		// sort data by class name
 		List<Class<?>> clazzes = new ArrayList<>(
 				clazzResult.keySet());
@@ -589,10 +1737,22 @@ public class Benchmark {
 				return o1.getCanonicalName().compareTo(o2.getCanonicalName());
 			}
 		});
-		DefaultCategoryDataset dataSet = new DefaultCategoryDataset();
-		// add the data to the dataset
-		for (Class<?> clazz : clazzes) {
-			dataSet.addValue(clazzResult.get(clazz), clazz.getName(), title.split(" ")[0]);
+		CategoryDataset dataSet;
+		if (clazzError == null) {
+			DefaultCategoryDataset valueDataSet = new DefaultCategoryDataset();
+			// add the data to the dataset
+			for (Class<?> clazz : clazzes) {
+				valueDataSet.addValue(clazzResult.get(clazz), clazz.getName(), title.split(" ")[0]);
+			}
+			dataSet = valueDataSet;
+		} else {
+			DefaultStatisticalCategoryDataset statDataSet = new DefaultStatisticalCategoryDataset();
+			// add the data and the error bars to the dataset
+			for (Class<?> clazz : clazzes) {
+				statDataSet.add(clazzResult.get(clazz), clazzError.get(clazz), clazz.getName(),
+						title.split(" ")[0]);
+			}
+			dataSet = statDataSet;
 		}
 		// create the chart
 		JFreeChart chart = ChartFactory.createBarChart(null, null, dataName, dataSet, PlotOrientation.HORIZONTAL,
@@ -600,24 +1760,28 @@ public class Benchmark {
 		chart.addSubtitle(new TextTitle(title));
 		// some customization in the style
 		CategoryPlot plot = chart.getCategoryPlot();
+		if (clazzError != null) {
+			StatisticalBarRenderer statRenderer = new StatisticalBarRenderer();
+			statRenderer.setErrorIndicatorPaint(Color.DARK_GRAY);
+			plot.setRenderer(statRenderer);
+		}
 		plot.setBackgroundPaint(new Color(250, 250, 250));
 		plot.setDomainGridlinePaint(new Color(255, 200, 200));
 		plot.setRangeGridlinePaint(Color.BLUE);
 		plot.getDomainAxis().setVisible(false);
 		plot.getRangeAxis().setLabelFont(new Font("arial", Font.PLAIN, 10));
 		BarRenderer renderer = (BarRenderer) chart.getCategoryPlot().getRenderer();
-		// display the class name in the bar chart
-		for (int i = 0; i < clazzResult.size(); i++) {
-			renderer.setSeriesItemLabelGenerator(i, new StandardCategoryItemLabelGenerator() {
+		// display the class name in the bar chart, unless a label generator is given
+		if (catItemLabelGenerator == null) {
+			catItemLabelGenerator = new StandardCategoryItemLabelGenerator() {
 				@Override
 				public String generateLabel(CategoryDataset dataset, int row, int column) {
-					String label = " " + dataset.getRowKey(row).toString();
-					if (dataset.getValue(row, column).equals(timeout * 1000000)) {
-						label += " (Timeout)";
-					}
-					return label;
+					return " " + dataset.getRowKey(row).toString();
 				}
-			});
+			};
+		}
+		for (int i = 0; i < clazzResult.size(); i++) {
+			renderer.setSeriesItemLabelGenerator(i, catItemLabelGenerator);
 			renderer.setSeriesItemLabelsVisible(i, true);
 			ItemLabelPosition itemPosition = new ItemLabelPosition(ItemLabelAnchor.CENTER, TextAnchor.CENTER_LEFT,
 					TextAnchor.CENTER_LEFT, 0.0);
@@ -637,32 +1801,28 @@ public class Benchmark {
 	}
 
 	/**
-	 * @param collectionClasses
-	 * @throws NoSuchMethodException
-	 * @throws SecurityException
+	 * Measure the deep size of each collection populated with the default
+	 * context, exact when the JVM is started with the {@link MemoryAgent}
+	 *
+	 * @param collectionClasses classes supported by {@link CollectionAdapters}
 	 */
-	@SuppressWarnings({ "rawtypes", "unchecked" })
-	public void runMemoryBench(List<Class<? extends Collection>> collectionClasses) {
-		for (Class<? extends Collection> clazz : collectionClasses) {
+	public void runMemoryBench(List<Class<?>> collectionClasses) {
+		if (!ObjectGraphWalker.isExact()) {
+			System.out.println("Memory agent not loaded, object sizes are estimated");
+		}
+		// the element Strings are shared by all the collections, only the
+		// collections themselves are measured
+		ObjectGraphWalker walker = new ObjectGraphWalker(defaultCtx);
+		for (Class<?> clazz : collectionClasses) {
 			try {
-				// run some gc
-				heavyGc();
-				long usedMemory = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
-				Constructor<? extends Collection> constructor = clazz.getDeclaredConstructor((Class<?>[]) null);
-				constructor.setAccessible(true);
-				// do the test on 100 objects, to be more accurate
-				for (int i = 0; i < 100; i++) {
-					this.collection = (Collection<String>) constructor.newInstance();
-					// polulate
-					collection.addAll(defaultCtx);
-					warmUp();
-				}
+				adapter = CollectionAdapters.create(clazz);
+				// polulate
+				adapter.addAll(defaultCtx);
 				// measure size
-				long objectSize = (long) ((ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() - usedMemory) / 100f);
-				System.out.println(clazz.getCanonicalName() + " Object size : " + objectSize + " bytes");
-				memoryResults.put(clazz, objectSize);
-				collection.clear();
-				collection = null;
+				ObjectGraphWalker.Footprint footprint = walker.walk(adapter.getTarget());
+				System.out.println(clazz.getCanonicalName() + " Object size : " + footprint);
+				memoryResults.put(clazz, footprint.getTotalBytes());
+				adapter = null;
 			} catch (Exception e) {
 				System.err.println("Failed running benchmark on class " + clazz.getCanonicalName());
 				e.printStackTrace();
@@ -670,36 +1830,17 @@ public class Benchmark {
 		}
 	}
 
-	/**
-	 * Force (very) heavy GC
-	 */
-	private void heavyGc() {
-		try {
-			System.gc();
-			Thread.sleep(200);
-			System.runFinalization();
-			Thread.sleep(200);
-			System.gc();
-			Thread.sleep(200);
-			System.runFinalization();
-			Thread.sleep(1000);
-			System.gc();
-			Thread.sleep(200);
-			System.runFinalization();
-			Thread.sleep(200);
-			System.gc();
-		} catch (InterruptedException ex) {
-			ex.printStackTrace();
-		}
-	}
-
 	/**
 	 * Display Memory results
 	 */
 	public void displayMemoryResults() {
+		if (headless) {
+			System.out.println("Headless mode, memory results not displayed");
+			return;
+		}
 		ChartPanel chart = createChart("Memory usage of collections",
 				"Memory usage (bytes) of collections populated by " + populateSize + " element(s)", memoryResults,
-				new StandardCategoryItemLabelGenerator());
+				null);
 		JFrame frame = new JFrame("Collection Implementations Benchmark");
 		frame.getContentPane().add(chart, BorderLayout.CENTER);
 		frame.setSize(900, 500);
@@ -708,6 +1849,39 @@ public class Benchmark {
 		frame.setVisible(true);
 	}
 
+	/**
+	 * Display the memory results of the primitive benchmark
+	 */
+	public void displayElementMemoryResults() {
+		if (headless) {
+			System.out.println("Headless mode, memory results not displayed");
+			return;
+		}
+		ChartPanel chart = createChart("Memory usage per element",
+				"Memory usage (bytes per element) of structures populated by " + populateSize + " element(s)",
+				elementMemoryResults, null);
+		JFrame frame = new JFrame("Primitive Collection Implementations Benchmark");
+		frame.getContentPane().add(chart, BorderLayout.CENTER);
+		frame.setSize(900, 500);
+		frame.setLocationRelativeTo(null);
+		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		frame.setVisible(true);
+	}
+
+	/**
+	 * Sum of the hash codes of the traversed elements, added to the sink once
+	 * the traversal is done
+	 */
+	private static final class HashSum implements Consumer<Object> {
+
+		private int sum;
+
+		@Override
+		public void accept(Object element) {
+			sum += element.hashCode();
+		}
+	}
+
 	/**
 	 * BenchRunnable
 	 * 
@@ -716,20 +1890,140 @@ public class Benchmark {
 	private interface BenchRunnable {
 		/**
 		 * Runnable that can exploit the current loop index
-		 * 
+		 *
 		 * @param loopIndex loop index
 		 */
 		public void run(int loopIndex);
+
+		/**
+		 * Prepare the arguments of the calls, once the structure is populated
+		 * and before the timed loop of each iteration
+		 *
+		 * @param loop number of calls of the iteration
+		 */
+		public default void setUp(int loop) {
+		}
+	}
+
+	/**
+	 * Apply a setting of the command line, shared by {@link #main(String[])}
+	 * and {@link ForkedBenchmark}
+	 *
+	 * @param args command line
+	 * @param i index of the argument to read
+	 * @return index of the last argument read, -1 if args[i] is not a setting
+	 */
+	int parseArgument(String[] args, int i) {
+		if ("--headless".equals(args[i])) {
+			setHeadless(true);
+		} else if ("--iterations".equals(args[i]) && i + 1 < args.length) {
+			setIterations(Integer.parseInt(args[++i]));
+		} else if ("--trim".equals(args[i])) {
+			setTrimOutliers(true);
+		} else if ("--latency".equals(args[i])) {
+			setRecordLatency(true);
+		} else if ("--gc-threshold".equals(args[i]) && i + 1 < args.length) {
+			setGcThreshold(Double.parseDouble(args[++i]));
+		} else if ("--trace".equals(args[i]) && i + 1 < args.length) {
+			addTrace(new File(args[++i]));
+		} else if ("--shared-classes".equals(args[i])) {
+			setIsolateTasks(false);
+		} else if ((Workload.isArgument(args[i]) || "--size".equals(args[i]) || "--timeout".equals(args[i]))
+				&& i + 1 < args.length) {
+			// already read by fromArgs
+			i++;
+		} else {
+			return -1;
+		}
+		return i;
+	}
+
+	/**
+	 * @param args command line, with --size count for the populate size,
+	 *            --timeout ms for the timeout of each task and the
+	 *            {@link Workload} arguments
+	 * @return a benchmark with these settings, the other ones are read by
+	 *         {@link #parseArgument(String[], int)}
+	 */
+	static Benchmark fromArgs(String[] args) {
+		long timeout = DEFAULT_TIMEOUT;
+		int size = DEFAULT_SIZE;
+		for (int i = 0; i + 1 < args.length; i++) {
+			if ("--size".equals(args[i])) {
+				size = Integer.parseInt(args[++i]);
+			} else if ("--timeout".equals(args[i])) {
+				timeout = Long.parseLong(args[++i]);
+			}
+		}
+		return new Benchmark(timeout, size, Workload.fromArgs(args));
+	}
+
+	/**
+	 * @return the structures benchmarked by the command line when no --class
+	 *         is given
+	 */
+	static List<Class<?>> defaultClasses() {
+		List<Class<?>> classes = new ArrayList<>();
+		classes.add(HashSet.class);
+		// not much point in testing this one, it's incredibly slow
+		// classes.add(CopyOnWriteArraySet.class);
+		classes.add(TreeSet.class);
+		classes.add(LinkedHashSet.class);
+		classes.add(UnorderedSet.class);
+		classes.add(OrderedSet.class);
+		classes.add(com.badlogic.gdx.utils.OrderedSet.class);
+		// other structures handled by CollectionAdapters
+		// classes.add(com.badlogic.gdx.utils.ObjectSet.class);
+		// classes.add(squidpony.squidmath.Arrangement.class);
+		// optional
+		// classes.add(TreeMultiset.class);
+		// classes.add(PriorityQueue.class);
+		return classes;
 	}
 
 	/**
 	 * Main
 	 * 
-	 * @param args
+	 * @param args --headless to skip the Swing display, --json file and
+	 *            --csv file to write the results, --iterations count to set
+	 *            the measurement iterations of each task, --trim to reject
+	 *            outliers, --gc-threshold fraction to flag the tasks spending
+	 *            more of their time in GC, --latency to time every call,
+	 *            --keys, --distribution, --length
+	 *            and --seed to choose the {@link Workload}, --size count and
+	 *            --timeout ms to change the populate size and the timeout
+	 *            of each task, --class name
+	 *            (repeatable) to replace the default structures, --task name
+	 *            to run a single task, --trace file (repeatable) to replay
+	 *            recorded traces instead of the tasks, --shared-classes to
+	 *            run all the tasks in the same classes instead of classes of
+	 *            their own
 	 */
 	public static void main(String[] args) {
 		try {
-			Benchmark benchmark = new Benchmark(15000, 100000);
+			Benchmark benchmark = fromArgs(args);
+			File jsonFile = null;
+			File csvFile = null;
+			List<Class<?>> classes = new ArrayList<>();
+			for (int i = 0; i < args.length; i++) {
+				int last = benchmark.parseArgument(args, i);
+				if (last >= 0) {
+					i = last;
+				} else if ("--json".equals(args[i]) && i + 1 < args.length) {
+					jsonFile = new File(args[++i]);
+				} else if ("--csv".equals(args[i]) && i + 1 < args.length) {
+					csvFile = new File(args[++i]);
+				} else if ("--class".equals(args[i]) && i + 1 < args.length) {
+					classes.add(Class.forName(args[++i]));
+				} else if ("--task".equals(args[i]) && i + 1 < args.length) {
+					benchmark.setTaskFilter(args[++i]);
+				} else {
+					System.err.println("Unknown argument " + args[i]);
+				}
+			}
+			if (classes.isEmpty()) {
+				classes = defaultClasses();
+			}
 
 			// standard benchmark
 //			 benchmark.run(Vector.class);
@@ -743,20 +2037,46 @@ public class Benchmark {
 //           benchmark.run(org.apache.commons.collections4.list.TreeList.class);
 //			 benchmark.displayBenchmarkResults();
 
-			// set benchmark
-			 benchmark.run(HashSet.class);
-
-			 // not much point in testing this one, it's incredibly slow
-			 //benchmark.run(CopyOnWriteArraySet.class);
-			 benchmark.run(TreeSet.class);
-			 benchmark.run(LinkedHashSet.class);
-			 benchmark.run(UnorderedSet.class);
-			 benchmark.run(OrderedSet.class);
-			 benchmark.run(com.badlogic.gdx.utils.OrderedSet.class);
-			 // optional
-			 // benchmark.run(TreeMultiset.class);
-			 // benchmark.run(PriorityQueue.class);
+			// set benchmark, see defaultClasses(), recorded traces replace
+			// the built-in tasks
+			for (Class<?> clazz : classes) {
+				benchmark.runSuite(clazz);
+			}
+			 if (jsonFile != null) {
+				 benchmark.exportJson(jsonFile);
+			 }
+			 if (csvFile != null) {
+				 benchmark.exportCsv(csvFile);
+			 }
 			 benchmark.displayBenchmarkResults();
+			 benchmark.displayThroughputResults();
+			 benchmark.displayAllocationResults();
+			 if (benchmark.recordLatency) {
+				 benchmark.displayLatencyResults();
+			 }
+
+			// map benchmark, same keys as the set benchmark
+//			 benchmark.runMap(HashMap.class);
+//			 benchmark.runMap(LinkedHashMap.class);
+//			 benchmark.runMap(TreeMap.class);
+//			 benchmark.runMap(squidpony.squidmath.UnorderedMap.class);
+//			 benchmark.runMap(squidpony.squidmath.OrderedMap.class);
+//			 benchmark.runMap(com.badlogic.gdx.utils.ObjectMap.class);
+//			 benchmark.runMap(com.badlogic.gdx.utils.OrderedMap.class);
+//			 benchmark.displayBenchmarkResults();
+
+			// primitive benchmark, boxed java.util references first
+//			 benchmark.runPrimitive(ArrayList.class);
+//			 benchmark.runPrimitive(HashSet.class);
+//			 benchmark.runPrimitive(HashMap.class);
+//			 benchmark.runPrimitive(com.badlogic.gdx.utils.IntArray.class);
+//			 benchmark.runPrimitive(com.badlogic.gdx.utils.IntSet.class);
+//			 benchmark.runPrimitive(com.badlogic.gdx.utils.IntIntMap.class);
+//			 benchmark.runPrimitive(com.badlogic.gdx.utils.LongMap.class);
+//			 benchmark.runPrimitive(squidpony.squidmath.IntVLA.class);
+//			 benchmark.runPrimitive(squidpony.squidmath.IntIntOrderedMap.class);
+//			 benchmark.displayBenchmarkResults();
+//			 benchmark.displayElementMemoryResults();
 
 //			 my benchmark
 //			 benchmark.run(CombinedList.class);
@@ -767,8 +2087,7 @@ public class Benchmark {
 //			 benchmark.displayBenchmarkResults();
 
 			// memory benchmark
-//			 List<Class<? extends Collection>> classes = new ArrayList<Class<?
-//			 extends Collection>>();
+//			 List<Class<?>> classes = new ArrayList<Class<?>>();
 //			 classes.add(Vector.class);
 //			 classes.add(TreeList.class);
 //			 classes.add(ArrayList.class);
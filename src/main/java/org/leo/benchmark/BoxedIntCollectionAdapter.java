@@ -0,0 +1,96 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import java.lang.reflect.Constructor;
+import java.util.Collection;
+
+/**
+ * Adapter for {@link Collection}s of {@link Integer}, every int is boxed
+ * on the way in and unboxed on the way out
+ *
+ * @author Tommy Ettinger
+ */
+public class BoxedIntCollectionAdapter implements IntCollectionAdapter {
+
+	/** Adapted structure */
+	private Collection<Integer> collection;
+
+	/**
+	 * Constructor
+	 *
+	 * @param collection adapted structure
+	 */
+	public BoxedIntCollectionAdapter(Collection<Integer> collection) {
+		this.collection = collection;
+	}
+
+	@Override
+	public Collection<Integer> getTarget() {
+		return collection;
+	}
+
+	@Override
+	public Class<?> getImplementationClass() {
+		return collection.getClass();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void renew() throws ReflectiveOperationException {
+		Constructor<?> constructor = collection.getClass().getDeclaredConstructor((Class<?>[]) null);
+		constructor.setAccessible(true);
+		collection = (Collection<Integer>) constructor.newInstance();
+	}
+
+	@Override
+	public void clear() {
+		collection.clear();
+	}
+
+	@Override
+	public int size() {
+		return collection.size();
+	}
+
+	@Override
+	public boolean add(int item) {
+		return collection.add(item);
+	}
+
+	@Override
+	public boolean remove(int item) {
+		// cast to Object, List.remove(int) would remove by index
+		return collection.remove((Object) item);
+	}
+
+	@Override
+	public boolean contains(int item) {
+		return collection.contains(item);
+	}
+
+	@Override
+	public long iterate() {
+		long sum = 0;
+		for (int item : collection) {
+			sum += item;
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,157 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+
+/**
+ * Cost and resolution of the timer, and cost of the timed loop, measured once
+ * for all the benchmarks of the JVM, including the copies run by
+ * {@link TaskClassLoader}
+ *
+ * @author Tommy Ettinger
+ */
+public final class Calibration {
+
+	/** Cost in ns of a System.nanoTime() call */
+	private static long timerOverhead = -1;
+
+	/** Smallest step in ns of System.nanoTime() */
+	private static long timerGranularity = -1;
+
+	/**
+	 * Cost in ns per call of the timed loop running an empty task, subtracted
+	 * from the measured times
+	 */
+	private static double loopOverhead = -1;
+
+	/**
+	 * Shortest time in ns a batch of latencies is timed over, so that the
+	 * resolution and the cost of the timer stay negligible
+	 */
+	private static long minBatchTime;
+
+	/**
+	 * Receives the index of the calibration task, as the tasks send their
+	 * results to a sink, so that its calls cannot be optimized away
+	 */
+	private static int sink;
+
+	private Calibration() {
+	}
+
+	/**
+	 * Measure the cost and the resolution of the timer, and the cost of the
+	 * timed loop, on first call
+	 */
+	public static synchronized void calibrate() {
+		if (loopOverhead >= 0) {
+			return;
+		}
+		timerOverhead = measureTimerOverhead();
+		timerGranularity = measureTimerGranularity();
+		minBatchTime = 10 * Math.max(timerOverhead, timerGranularity);
+		// a task doing nothing but consuming its index, in a loop of the same
+		// shape as the one of the tasks
+		IntConsumer empty = new IntConsumer() {
+			@Override
+			public void accept(int i) {
+				sink += i;
+			}
+		};
+		AtomicBoolean expired = new AtomicBoolean();
+		int loop = 1000000;
+		long best = Long.MAX_VALUE;
+		for (int round = 0; round < 30; round++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < loop && !expired.get(); i++) {
+				try {
+					empty.accept(i);
+				} catch (Exception e) {
+					// on purpose so ignore it
+				}
+			}
+			// the first rounds warm the loop up
+			if (round >= 10) {
+				best = Math.min(best, System.nanoTime() - start);
+			}
+		}
+		loopOverhead = (double) best / loop;
+		System.out.println("Calibration : System.nanoTime() step " + timerGranularity + "ns and cost "
+				+ timerOverhead + "ns, empty task " + String.format("%.2f", loopOverhead)
+				+ "ns per call, subtracted from the times");
+	}
+
+	/**
+	 * @return cost in ns of a System.nanoTime() call
+	 */
+	public static synchronized long getTimerOverhead() {
+		return timerOverhead;
+	}
+
+	/**
+	 * @return cost in ns per call of the timed loop
+	 */
+	public static synchronized double getLoopOverhead() {
+		return loopOverhead;
+	}
+
+	/**
+	 * @return shortest time in ns a batch of latencies is timed over
+	 */
+	public static synchronized long getMinBatchTime() {
+		return minBatchTime;
+	}
+
+	/**
+	 * @return the smallest non zero difference between two System.nanoTime()
+	 *         values
+	 */
+	private static long measureTimerGranularity() {
+		long granularity = Long.MAX_VALUE;
+		for (int i = 0; i < 10000; i++) {
+			long start = System.nanoTime();
+			long end;
+			do {
+				end = System.nanoTime();
+			} while (end == start);
+			granularity = Math.min(granularity, end - start);
+		}
+		return granularity;
+	}
+
+	/**
+	 * @return the median time between two consecutive System.nanoTime()
+	 *         calls, subtracted from every recorded latency
+	 */
+	private static long measureTimerOverhead() {
+		long[] deltas = new long[10001];
+		// the first rounds warm the loop up, the last one is kept
+		for (int round = 0; round < 5; round++) {
+			for (int i = 0; i < deltas.length; i++) {
+				long start = System.nanoTime();
+				deltas[i] = System.nanoTime() - start;
+			}
+		}
+		Arrays.sort(deltas);
+		return deltas[deltas.length / 2];
+	}
+}
@@ -0,0 +1,75 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.function.Predicate;
+
+/**
+ * Common view over the structures that can be benchmarked, whether they
+ * implement {@link Collection} or not
+ *
+ * @author Tommy Ettinger
+ */
+public interface CollectionAdapter<T> extends StructureAdapter {
+
+	boolean add(T item);
+
+	boolean remove(Object item);
+
+	boolean contains(Object item);
+
+	Iterator<T> iterator();
+
+	Object[] toArray();
+
+	boolean addAll(Collection<? extends T> items);
+
+	boolean removeAll(Collection<?> items);
+
+	boolean containsAll(Collection<?> items);
+
+	boolean retainAll(Collection<?> items);
+
+	/**
+	 * Remove the items matching the filter, with the structure's own removeIf
+	 * when it has one, else with the loop its users would write
+	 *
+	 * @param filter items to remove
+	 * @return true if an item was removed
+	 */
+	boolean removeIf(Predicate<? super T> filter);
+
+	/**
+	 * @return true if the structure has an order of its own, that
+	 *         {@link #sort(Comparator)} can change
+	 */
+	boolean isSortable();
+
+	/**
+	 * Sort the structure, if it has an order of its own
+	 *
+	 * @param comparator order of the items
+	 * @return false, leaving the structure as is, if its order cannot be
+	 *         changed (hash sets, sorted sets)
+	 */
+	boolean sort(Comparator<? super T> comparator);
+}
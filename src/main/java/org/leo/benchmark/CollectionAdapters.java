@@ -0,0 +1,75 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectSet;
+import squidpony.squidmath.Arrangement;
+
+import java.lang.reflect.Constructor;
+import java.util.Collection;
+
+/**
+ * Create the {@link CollectionAdapter} matching a structure class
+ *
+ * @author Tommy Ettinger
+ */
+public final class CollectionAdapters {
+
+	private CollectionAdapters() {
+	}
+
+	/**
+	 * @param clazz structure class
+	 * @return true if {@link #create(Class)} can adapt instances of this class
+	 */
+	public static boolean isSupported(Class<?> clazz) {
+		return Collection.class.isAssignableFrom(clazz) || ObjectSet.class.isAssignableFrom(clazz)
+				|| Array.class.isAssignableFrom(clazz) || Arrangement.class.isAssignableFrom(clazz);
+	}
+
+	/**
+	 * Create a new empty instance of the given class, using its no-arg
+	 * constructor, and wrap it in the matching adapter
+	 *
+	 * @param clazz structure class
+	 * @return the adapter
+	 * @throws ReflectiveOperationException if the class cannot be instantiated
+	 * @throws IllegalArgumentException if no adapter handles this class
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> CollectionAdapter<T> create(Class<?> clazz) throws ReflectiveOperationException {
+		if (!isSupported(clazz)) {
+			throw new IllegalArgumentException("No adapter for " + clazz.getName());
+		}
+		Constructor<?> constructor = clazz.getDeclaredConstructor((Class<?>[]) null);
+		constructor.setAccessible(true);
+		Object instance = constructor.newInstance();
+		if (instance instanceof Collection) {
+			return new JavaCollectionAdapter<>((Collection<T>) instance);
+		}
+		if (instance instanceof ObjectSet) {
+			return new GdxObjectSetAdapter<>((ObjectSet<T>) instance);
+		}
+		if (instance instanceof Array) {
+			return new GdxArrayAdapter<>((Array<T>) instance);
+		}
+		return new SquidArrangementAdapter<>((Arrangement<T>) instance);
+	}
+}
@@ -0,0 +1,473 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartPanel;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.LogAxis;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+import squidpony.squidmath.OrderedSet;
+import squidpony.squidmath.UnorderedSet;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Hash collision benchmark
+ * <p>
+ * Populate the sets with String keys of which a growing fraction collide, and
+ * measure how add, contains and remove degrade. Two kinds of collisions are
+ * tested: keys with equal String.hashCode, as in a hash flooding attack, and
+ * keys with distinct hashCodes sharing the low bits of h ^ (h >>> 16), the
+ * bits java.util.HashMap uses to pick a bucket.
+ * <p>
+ * Some structures do not survive full collisions (libGDX cuckoo sets grow
+ * until the heap is exhausted), such failures are reported as is and the
+ * larger fractions are skipped.
+ *
+ * @author Tommy Ettinger
+ */
+public class CollisionBenchmark {
+
+	/**
+	 * Kind of colliding keys
+	 */
+	public enum Collision {
+		/** Equal String.hashCode */
+		EQUAL_HASH,
+		/** Distinct hashCodes, equal low bits once spread as HashMap does */
+		LOW_BITS
+	}
+
+	/** Measured operations */
+	private static final String[] OPERATIONS = { "add", "contains (hit)", "contains (miss)", "remove" };
+
+	/** Number of keys in the sets */
+	private int populateSize;
+
+	/** Fractions of colliding keys, in increasing order */
+	private double[] fractions;
+
+	/** Time limit in ms for one implementation at one fraction */
+	private long timeout;
+
+	/** Number of measurement iterations, the median is kept */
+	private int iterations = 3;
+
+	/** Length of the keys, the colliding and the regular ones are as long */
+	private int keyLength;
+
+	/**
+	 * Time per call in ns by collision and operation, then by implementation,
+	 * indexed like the fractions, NaN when not measured
+	 */
+	private Map<String, Map<String, double[]>> results;
+
+	/** Why an implementation stopped early, by collision and implementation */
+	private Map<String, String> failures;
+
+	/** Skip the Swing display of the results, for machines without screen */
+	private boolean headless = GraphicsEnvironment.isHeadless();
+
+	/**
+	 * Constructor
+	 *
+	 * @param populateSize number of keys in the sets
+	 * @param fractions fractions of colliding keys, between 0 and 1, in
+	 *            increasing order
+	 * @param timeout time limit in ms for one implementation at one fraction
+	 */
+	public CollisionBenchmark(int populateSize, double[] fractions, long timeout) {
+		this.populateSize = populateSize;
+		this.fractions = fractions.clone();
+		this.timeout = timeout;
+		// as long as the longest "Aa"/"BB" colliding key
+		keyLength = Math.max(16, 2 * (32 - Integer.numberOfLeadingZeros(2 * populateSize)));
+		results = new LinkedHashMap<>();
+		failures = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Run both kinds of collisions on the given set class
+	 *
+	 * @param setClass a class supported by {@link CollectionAdapters}
+	 */
+	public void run(Class<?> setClass) {
+		for (Collision collision : Collision.values()) {
+			run(setClass, collision);
+		}
+	}
+
+	/**
+	 * Run one kind of collisions on the given set class, with every fraction
+	 *
+	 * @param setClass a class supported by {@link CollectionAdapters}
+	 * @param collision kind of colliding keys
+	 */
+	public void run(Class<?> setClass, Collision collision) {
+		String implementation = setClass.getName();
+		System.out.println("Collisions (" + collision + ") on " + implementation + " populated with " + populateSize
+				+ " keys");
+		System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+		for (String operation : OPERATIONS) {
+			double[] values = new double[fractions.length];
+			Arrays.fill(values, Double.NaN);
+			resultsOf(collision, operation).put(implementation, values);
+		}
+		for (int f = 0; f < fractions.length; f++) {
+			List<Object> keys = keys(collision, fractions[f], populateSize, 0);
+			List<Object> missing = keys(collision, fractions[f], populateSize, 1);
+			String failure = null;
+			long[][] times = new long[OPERATIONS.length][iterations];
+			try {
+				long deadline = System.nanoTime() + timeout * 1000000;
+				// the first iteration only warms up
+				for (int it = -1; it < iterations && failure == null; it++) {
+					failure = measure(setClass, keys, missing, times, it, deadline);
+				}
+			} catch (OutOfMemoryError e) {
+				failure = "OutOfMemoryError";
+			} catch (ReflectiveOperationException e) {
+				failure = e.toString();
+			}
+			GcMeter.settle(2000);
+			if (failure != null) {
+				String reason = failure + " with " + Math.round(fractions[f] * 100) + "% colliding keys";
+				System.out.println(reason + ", larger fractions skipped");
+				failures.put(collision + " " + implementation, reason);
+				break;
+			}
+			StringBuilder line = new StringBuilder(Math.round(fractions[f] * 100) + "% colliding :");
+			for (int op = 0; op < OPERATIONS.length; op++) {
+				double nsPerCall = new Statistics(times[op], false).getMedian() / populateSize;
+				resultsOf(collision, OPERATIONS[op]).get(implementation)[f] = nsPerCall;
+				line.append(' ').append(OPERATIONS[op]).append(' ').append(String.format("%.1f", nsPerCall))
+						.append("ns");
+			}
+			System.out.println(line);
+		}
+		System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+	}
+
+	/**
+	 * One iteration of every operation on a new instance
+	 *
+	 * @param it iteration index, the times are not kept when negative
+	 * @return null, or the reason why the measure stopped
+	 */
+	private String measure(Class<?> setClass, List<Object> keys, List<Object> missing, long[][] times, int it,
+			long deadline) throws ReflectiveOperationException {
+		CollectionAdapter<Object> set = CollectionAdapters.create(setClass);
+		int n = keys.size();
+		long start = System.nanoTime();
+		for (int i = 0; i < n; i++) {
+			set.add(keys.get(i));
+			if ((i & 255) == 0 && System.nanoTime() > deadline) {
+				return "Timeout after " + i + " adds";
+			}
+		}
+		times[0][Math.max(it, 0)] = System.nanoTime() - start;
+		int found = 0;
+		start = System.nanoTime();
+		for (int i = 0; i < n; i++) {
+			if (set.contains(keys.get(i))) {
+				found++;
+			}
+			if ((i & 255) == 0 && System.nanoTime() > deadline) {
+				return "Timeout after " + i + " contains";
+			}
+		}
+		times[1][Math.max(it, 0)] = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int i = 0; i < n; i++) {
+			if (set.contains(missing.get(i))) {
+				found--;
+			}
+			if ((i & 255) == 0 && System.nanoTime() > deadline) {
+				return "Timeout after " + i + " missing contains";
+			}
+		}
+		times[2][Math.max(it, 0)] = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int i = 0; i < n; i++) {
+			set.remove(keys.get(i));
+			if ((i & 255) == 0 && System.nanoTime() > deadline) {
+				return "Timeout after " + i + " removes";
+			}
+		}
+		times[3][Math.max(it, 0)] = System.nanoTime() - start;
+		if (found != n || set.size() != 0) {
+			return "Wrong results (" + found + " keys found, " + set.size() + " left)";
+		}
+		return null;
+	}
+
+	/**
+	 * @param collision kind of colliding keys
+	 * @param fraction fraction of colliding keys
+	 * @param count number of keys
+	 * @param part 0 for the keys put in the sets, 1 for the missing keys, both
+	 *            are disjoint
+	 * @return shuffled keys, the colliding ones among the regular ones
+	 */
+	private List<Object> keys(Collision collision, double fraction, int count, int part) {
+		int colliding = (int) Math.round(fraction * count);
+		List<Object> keys = new ArrayList<>(count);
+		if (colliding > 0) {
+			List<Object> all;
+			if (collision == Collision.EQUAL_HASH) {
+				all = new Workload(Workload.KeyType.STRING, Workload.Distribution.COLLIDING, keyLength, 0)
+						.keys(colliding * 2);
+			} else {
+				all = lowBitsKeys(colliding * 2);
+			}
+			keys.addAll(all.subList(part * colliding, (part + 1) * colliding));
+		}
+		// the regular keys have their own seed so they never match a colliding one
+		List<Object> regular = new Workload(Workload.KeyType.STRING, Workload.Distribution.UNIFORM, keyLength, 1)
+				.keys((count - colliding) * 2);
+		keys.addAll(regular.subList(part * (count - colliding), (part + 1) * (count - colliding)));
+		Collections.shuffle(keys, new Random(part));
+		return keys;
+	}
+
+	/**
+	 * @param count number of keys
+	 * @return distinct strings whose hashCode h has h ^ (h >>> 16) ending with
+	 *         16 zero bits, the last two characters are chosen to get there
+	 */
+	private List<Object> lowBitsKeys(int count) {
+		List<Object> prefixes = new Workload(Workload.KeyType.STRING, Workload.Distribution.UNIFORM, keyLength - 2, 2)
+				.keys(count);
+		List<Object> keys = new ArrayList<>(count);
+		for (Object prefix : prefixes) {
+			String p = (String) prefix;
+			// hash of p + c1 + c2 is base + c1 * 31 + c2
+			int base = p.hashCode() * 31 * 31;
+			int high = (base >>> 16) + 2;
+			int target = high << 16 | (high & 0xFFFF);
+			// distance between 2^16 and 3 * 2^16, so c1 stays a plain BMP char
+			int distance = target - base;
+			int c2 = 33 + Math.floorMod(distance - 33, 31);
+			int c1 = (distance - c2) / 31;
+			keys.add(p + (char) c1 + (char) c2);
+		}
+		return keys;
+	}
+
+	/**
+	 * @param collision kind of colliding keys
+	 * @param operation operation name
+	 * @return the results of that operation, by implementation
+	 */
+	private Map<String, double[]> resultsOf(Collision collision, String operation) {
+		String key = collision + " " + operation;
+		Map<String, double[]> byImplementation = results.get(key);
+		if (byImplementation == null) {
+			byImplementation = new LinkedHashMap<>();
+			results.put(key, byImplementation);
+		}
+		return byImplementation;
+	}
+
+	/**
+	 * @param iterations number of measurement iterations, the median is kept,
+	 *            3 by default
+	 */
+	public void setIterations(int iterations) {
+		this.iterations = Math.max(1, iterations);
+	}
+
+	/**
+	 * @param headless true to skip the Swing display of the results, the
+	 *            default is true on machines without screen
+	 */
+	public void setHeadless(boolean headless) {
+		this.headless = headless;
+	}
+
+	/**
+	 * Print, for each kind of collision, the implementations from the most to
+	 * the least graceful: by the largest fraction they survived, then by how
+	 * much slower contains gets between no collision and that fraction
+	 */
+	public void printSummary() {
+		for (final Collision collision : Collision.values()) {
+			final Map<String, double[]> contains = results.get(collision + " contains (hit)");
+			if (contains == null) {
+				continue;
+			}
+			System.out.println("Degradation of contains with " + collision + " collisions, most graceful first");
+			System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+			List<String> implementations = new ArrayList<>(contains.keySet());
+			Collections.sort(implementations, new Comparator<String>() {
+				@Override
+				public int compare(String o1, String o2) {
+					int c = Integer.compare(lastMeasured(contains.get(o2)), lastMeasured(contains.get(o1)));
+					return c != 0 ? c : Double.compare(slowdown(contains.get(o1)), slowdown(contains.get(o2)));
+				}
+			});
+			for (String implementation : implementations) {
+				double[] values = contains.get(implementation);
+				int last = lastMeasured(values);
+				String failure = failures.get(collision + " " + implementation);
+				if (last < 0) {
+					System.out.println("    " + implementation + " : " + failure);
+				} else {
+					System.out.println("    " + implementation + " : x" + String.format("%.1f", slowdown(values))
+							+ " at " + Math.round(fractions[last] * 100) + "% colliding keys"
+							+ (failure == null ? "" : ", then " + failure));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param values times by fraction
+	 * @return the index of the largest fraction measured, -1 if none
+	 */
+	private static int lastMeasured(double[] values) {
+		int last = -1;
+		for (int i = 0; i < values.length; i++) {
+			if (!Double.isNaN(values[i])) {
+				last = i;
+			}
+		}
+		return last;
+	}
+
+	/**
+	 * @param values times by fraction
+	 * @return the time at the largest fraction measured divided by the time at
+	 *         the smallest one
+	 */
+	private static double slowdown(double[] values) {
+		int last = lastMeasured(values);
+		if (last < 0 || Double.isNaN(values[0]) || values[0] <= 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return values[last] / values[0];
+	}
+
+	/**
+	 * Display one chart per kind of collision and operation, with the time per
+	 * call against the fraction of colliding keys
+	 */
+	public void displayResults() {
+		if (headless) {
+			System.out.println("Headless mode, collision results not displayed");
+			return;
+		}
+		JPanel mainPanel = new JPanel(new GridLayout(0, OPERATIONS.length, 5, 5));
+		for (Map.Entry<String, Map<String, double[]>> entry : results.entrySet()) {
+			XYSeriesCollection dataSet = new XYSeriesCollection();
+			for (Map.Entry<String, double[]> implementation : entry.getValue().entrySet()) {
+				XYSeries series = new XYSeries(implementation.getKey());
+				double[] values = implementation.getValue();
+				for (int i = 0; i < values.length; i++) {
+					if (!Double.isNaN(values[i]) && values[i] > 0) {
+						series.add(fractions[i] * 100, values[i]);
+					}
+				}
+				dataSet.addSeries(series);
+			}
+			mainPanel.add(createChart(entry.getKey(), dataSet));
+		}
+		JFrame frame = new JFrame("Hash Collision Benchmark");
+		frame.getContentPane().add(
+				new JLabel("Hash Collision Benchmark. Populate size : " + populateSize + ", timeout : " + timeout
+						+ "ms, missing points are failures or timeouts"), BorderLayout.NORTH);
+		frame.getContentPane().add(mainPanel, BorderLayout.CENTER);
+		frame.setSize(1200, 600);
+		frame.setLocationRelativeTo(null);
+		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		frame.setVisible(true);
+	}
+
+	/**
+	 * Create a line chart with the colliding percentage as domain and a
+	 * logarithmic time axis
+	 *
+	 * @param title title
+	 * @param dataSet one series per implementation
+	 * @return the chartPanel
+	 */
+	private ChartPanel createChart(String title, XYSeriesCollection dataSet) {
+		JFreeChart chart = ChartFactory.createXYLineChart(title, "Colliding keys (%)", "Time per call (ns)", dataSet,
+				PlotOrientation.VERTICAL, true, true, false);
+		XYPlot plot = chart.getXYPlot();
+		plot.setRangeAxis(new LogAxis("Time per call (ns)"));
+		plot.setBackgroundPaint(new Color(250, 250, 250));
+		plot.setDomainGridlinePaint(new Color(255, 200, 200));
+		plot.setRangeGridlinePaint(Color.BLUE);
+		chart.setBorderVisible(true);
+		return new ChartPanel(chart);
+	}
+
+	/**
+	 * Main
+	 *
+	 * @param args --headless to skip the Swing display, --size count to set
+	 *            the number of keys
+	 */
+	public static void main(String[] args) {
+		try {
+			int size = 10000;
+			boolean headless = false;
+			for (int i = 0; i < args.length; i++) {
+				if ("--headless".equals(args[i])) {
+					headless = true;
+				} else if ("--size".equals(args[i]) && i + 1 < args.length) {
+					size = Integer.parseInt(args[++i]);
+				} else {
+					System.err.println("Unknown argument " + args[i]);
+				}
+			}
+			CollisionBenchmark benchmark = new CollisionBenchmark(size,
+					new double[] { 0, 0.01, 0.05, 0.1, 0.25, 0.5, 1 }, 10000);
+			if (headless) {
+				benchmark.setHeadless(true);
+			}
+			benchmark.run(HashSet.class);
+			benchmark.run(LinkedHashSet.class);
+			benchmark.run(UnorderedSet.class);
+			benchmark.run(OrderedSet.class);
+			benchmark.run(com.badlogic.gdx.utils.ObjectSet.class);
+			benchmark.run(com.badlogic.gdx.utils.OrderedSet.class);
+			benchmark.printSummary();
+			benchmark.displayResults();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+/**
+ * Key made of several fields, with a deliberately expensive hashCode, like
+ * the business keys of real applications
+ *
+ * @author Tommy Ettinger
+ */
+public final class CompositeKey implements Comparable<CompositeKey> {
+
+	/** Rounds of mixing done by {@link #hashCode()} */
+	private static final int HASH_ROUNDS = 8;
+
+	private final long id;
+
+	private final int tenant;
+
+	private final String region;
+
+	/**
+	 * Constructor
+	 *
+	 * @param id identifier
+	 * @param tenant tenant number
+	 * @param region region name
+	 */
+	public CompositeKey(long id, int tenant, String region) {
+		this.id = id;
+		this.tenant = tenant;
+		this.region = region;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public int getTenant() {
+		return tenant;
+	}
+
+	public String getRegion() {
+		return region;
+	}
+
+	@Override
+	public int hashCode() {
+		// not cached on purpose, every lookup pays for it
+		int h = (int) (id ^ (id >>> 32));
+		for (int i = 0; i < HASH_ROUNDS; i++) {
+			h = h * 31 + tenant;
+			h = h * 31 + region.hashCode();
+			h ^= h >>> 15;
+			h *= 0x2C1B3C6D;
+			h ^= h >>> 12;
+		}
+		return h;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof CompositeKey)) {
+			return false;
+		}
+		CompositeKey other = (CompositeKey) obj;
+		return id == other.id && tenant == other.tenant && region.equals(other.region);
+	}
+
+	@Override
+	public int compareTo(CompositeKey o) {
+		int c = Long.compare(id, o.id);
+		if (c == 0) {
+			c = Integer.compare(tenant, o.tenant);
+		}
+		return c == 0 ? region.compareTo(o.region) : c;
+	}
+
+	@Override
+	public String toString() {
+		return region + "/" + tenant + "/" + id;
+	}
+}
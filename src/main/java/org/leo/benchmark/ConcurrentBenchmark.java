@@ -0,0 +1,392 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartPanel;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.NumberAxis;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+
+import javax.swing.*;
+import java.awt.*;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * Concurrent Collection Benchmark
+ * <p>
+ * Run a mix of contains/add/remove calls on a shared collection from 1 to
+ * maxThreads threads, and measure the aggregate throughput and how fairly
+ * it is shared between the threads
+ *
+ * @author Tommy Ettinger
+ */
+public class ConcurrentBenchmark {
+
+	/**
+	 * Number of elements to populate the collection on which the benchmark will
+	 * be launched, the keys used by the threads are twice as many so that
+	 * about half the calls hit
+	 */
+	private int populateSize;
+
+	/** Time in ms during which the threads hammer the collection, for each thread count */
+	private long duration;
+
+	/** Percentage of contains calls */
+	private int readPercent;
+
+	/** Percentage of add calls, the rest are remove calls */
+	private int writePercent;
+
+	/** Maximum number of threads */
+	private int maxThreads;
+
+	/** Keys used by the threads, the first populateSize ones populate the collection */
+	private String[] keys;
+
+	/** Set by the main thread to stop the workers */
+	private volatile boolean stop;
+
+	/** Time in ns between the start of the workers and the end of the last one, for the last run */
+	private long elapsed;
+
+	/** Results by implementation name */
+	private Map<String, ScalingResult> results;
+
+	/** Skip the Swing display of the results, for machines without screen */
+	private boolean headless = GraphicsEnvironment.isHeadless();
+
+	/**
+	 * Constructor
+	 *
+	 * @param populateSize number of elements in the collection before each run
+	 * @param duration time in ms of each run
+	 * @param readPercent percentage of contains calls
+	 * @param writePercent percentage of add calls
+	 * @param removePercent percentage of remove calls
+	 * @param maxThreads maximum number of threads, runs are done with 1 to
+	 *            maxThreads threads
+	 */
+	public ConcurrentBenchmark(int populateSize, long duration, int readPercent, int writePercent, int removePercent,
+			int maxThreads) {
+		if (readPercent < 0 || writePercent < 0 || removePercent < 0
+				|| readPercent + writePercent + removePercent != 100) {
+			throw new IllegalArgumentException("The read/write/remove mix must add up to 100 : " + readPercent + "/"
+					+ writePercent + "/" + removePercent);
+		}
+		this.populateSize = populateSize;
+		this.duration = duration;
+		this.readPercent = readPercent;
+		this.writePercent = writePercent;
+		this.maxThreads = Math.max(1, maxThreads);
+		keys = new String[populateSize * 2];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = Integer.toBinaryString(i);
+		}
+		results = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Factory of the tested collections, for implementations that are not
+	 * created with a no-arg constructor
+	 */
+	public interface CollectionFactory {
+		/**
+		 * @return a new empty thread-safe collection
+		 */
+		Collection<String> create();
+	}
+
+	/**
+	 * Run the benchmark on a collection class with a no-arg constructor
+	 *
+	 * @param collectionClass thread-safe collection class
+	 */
+	public void run(final Class<?> collectionClass) {
+		run(collectionClass.getSimpleName(), new CollectionFactory() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public Collection<String> create() {
+				try {
+					Constructor<?> constructor = collectionClass.getDeclaredConstructor((Class<?>[]) null);
+					constructor.setAccessible(true);
+					return (Collection<String>) constructor.newInstance();
+				} catch (ReflectiveOperationException e) {
+					throw new IllegalArgumentException(e);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Run the benchmark with every thread count from 1 to maxThreads
+	 *
+	 * @param name implementation name, displayed in the results
+	 * @param factory creates the tested collection
+	 */
+	public void run(String name, CollectionFactory factory) {
+		System.out.println("Concurrent performances of " + name + " populated with " + populateSize + " elt(s), "
+				+ readPercent + "% contains / " + writePercent + "% add / " + (100 - readPercent - writePercent)
+				+ "% remove");
+		System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+		try {
+			// warmup, with all the threads
+			execute(factory, maxThreads);
+			ScalingResult result = new ScalingResult(maxThreads);
+			for (int threads = 1; threads <= maxThreads; threads++) {
+				long[] ops = execute(factory, threads);
+				long total = 0;
+				double squares = 0;
+				for (long op : ops) {
+					total += op;
+					squares += (double) op * op;
+				}
+				result.throughput[threads - 1] = total * 1e9 / elapsed;
+				// Jain's fairness index, 1 when every thread did the same
+				// number of calls, 1/threads when one thread did them all
+				result.fairness[threads - 1] = squares == 0 ? 1 : (double) total * total / (threads * squares);
+				System.out.println(threads + " thread(s) ... " + Math.round(result.throughput[threads - 1])
+						+ " ops/s, fairness " + String.format("%.3f", result.fairness[threads - 1]));
+			}
+			results.put(name, result);
+		} catch (Exception e) {
+			System.err.println("Failed running concurrent benchmark on " + name);
+			e.printStackTrace();
+		}
+		System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+		GcMeter.settle(2000);
+	}
+
+	/**
+	 * Run the mix on a freshly populated collection with the given number of
+	 * threads during the configured duration
+	 *
+	 * @param factory creates the tested collection
+	 * @param threads number of threads
+	 * @return number of calls done by each thread
+	 * @throws Exception if the threads could not be synchronized
+	 */
+	private long[] execute(CollectionFactory factory, int threads) throws Exception {
+		final Collection<String> collection = factory.create();
+		for (int i = 0; i < populateSize; i++) {
+			collection.add(keys[i]);
+		}
+		final long[] ops = new long[threads];
+		final CyclicBarrier start = new CyclicBarrier(threads + 1);
+		final CountDownLatch done = new CountDownLatch(threads);
+		final int writeLimit = readPercent + writePercent;
+		stop = false;
+		for (int t = 0; t < threads; t++) {
+			final int index = t;
+			Thread worker = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					// xorshift state, different for each thread
+					int state = 0x9E3779B9 * (index + 1);
+					long count = 0;
+					try {
+						start.await();
+						while (!stop) {
+							state ^= state << 13;
+							state ^= state >>> 17;
+							state ^= state << 5;
+							String key = keys[(state >>> 1) % keys.length];
+							int op = (state >>> 8) % 100;
+							if (op < readPercent) {
+								collection.contains(key);
+							} else if (op < writeLimit) {
+								collection.add(key);
+							} else {
+								collection.remove(key);
+							}
+							count++;
+						}
+					} catch (Exception e) {
+						e.printStackTrace();
+					} finally {
+						ops[index] = count;
+						done.countDown();
+					}
+				}
+			}, "ConcurrentBenchmark-" + t);
+			worker.setDaemon(true);
+			worker.start();
+		}
+		// all the threads start at the same time
+		start.await();
+		long startTime = System.nanoTime();
+		Thread.sleep(duration);
+		stop = true;
+		done.await();
+		elapsed = System.nanoTime() - startTime;
+		return ops;
+	}
+
+	/**
+	 * @param headless true to skip the Swing display of the results, the
+	 *            default is true on machines without screen
+	 */
+	public void setHeadless(boolean headless) {
+		this.headless = headless;
+	}
+
+	/**
+	 * Display the throughput and fairness curves of every implementation
+	 */
+	public void displayResults() {
+		if (headless) {
+			System.out.println("Headless mode, concurrent results not displayed");
+			return;
+		}
+		XYSeriesCollection throughputs = new XYSeriesCollection();
+		XYSeriesCollection fairnesses = new XYSeriesCollection();
+		for (Map.Entry<String, ScalingResult> entry : results.entrySet()) {
+			XYSeries throughput = new XYSeries(entry.getKey());
+			XYSeries fairness = new XYSeries(entry.getKey());
+			ScalingResult result = entry.getValue();
+			for (int i = 0; i < result.throughput.length; i++) {
+				throughput.add(i + 1, result.throughput[i]);
+				fairness.add(i + 1, result.fairness[i]);
+			}
+			throughputs.addSeries(throughput);
+			fairnesses.addSeries(fairness);
+		}
+		JPanel mainPanel = new JPanel(new GridLayout(1, 2, 5, 5));
+		mainPanel.add(createChart("Aggregate throughput", "Calls per second", throughputs));
+		mainPanel.add(createChart("Fairness between threads (Jain's index)", "Fairness", fairnesses));
+		JFrame frame = new JFrame("Concurrent Collection Implementations Benchmark");
+		frame.getContentPane().add(
+				new JLabel("Concurrent Collection Implementations Benchmark. Populate size : " + populateSize
+						+ ", mix : " + readPercent + "% contains / " + writePercent + "% add / "
+						+ (100 - readPercent - writePercent) + "% remove, " + duration + "ms per run"),
+				BorderLayout.NORTH);
+		frame.getContentPane().add(mainPanel, BorderLayout.CENTER);
+		frame.setSize(900, 500);
+		frame.setLocationRelativeTo(null);
+		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		frame.setVisible(true);
+	}
+
+	/**
+	 * Create a line chart with the thread count as domain
+	 *
+	 * @param title title
+	 * @param dataName name of the data
+	 * @param dataSet one series per implementation
+	 * @return the chartPanel
+	 */
+	private ChartPanel createChart(String title, String dataName, XYSeriesCollection dataSet) {
+		JFreeChart chart = ChartFactory.createXYLineChart(title, "Threads", dataName, dataSet,
+				PlotOrientation.VERTICAL, true, true, false);
+		XYPlot plot = chart.getXYPlot();
+		plot.setBackgroundPaint(new Color(250, 250, 250));
+		plot.setDomainGridlinePaint(new Color(255, 200, 200));
+		plot.setRangeGridlinePaint(Color.BLUE);
+		plot.getDomainAxis().setStandardTickUnits(NumberAxis.createIntegerTickUnits());
+		chart.setBorderVisible(true);
+		return new ChartPanel(chart);
+	}
+
+	/**
+	 * Throughput and fairness of one implementation, indexed by thread count - 1
+	 */
+	private static class ScalingResult {
+		/** Calls per second, all threads together */
+		final double[] throughput;
+		/** Jain's fairness index of the calls done by each thread */
+		final double[] fairness;
+
+		ScalingResult(int maxThreads) {
+			throughput = new double[maxThreads];
+			fairness = new double[maxThreads];
+		}
+	}
+
+	/**
+	 * Main
+	 *
+	 * @param args --headless to skip the Swing display, --threads n for the
+	 *            maximum number of threads (the core count by default),
+	 *            --mix read,write,remove for the percentages of contains, add
+	 *            and remove calls (80,10,10 by default)
+	 */
+	public static void main(String[] args) {
+		try {
+			boolean headless = false;
+			int maxThreads = Runtime.getRuntime().availableProcessors();
+			int[] mix = { 80, 10, 10 };
+			for (int i = 0; i < args.length; i++) {
+				if ("--headless".equals(args[i])) {
+					headless = true;
+				} else if ("--threads".equals(args[i]) && i + 1 < args.length) {
+					maxThreads = Integer.parseInt(args[++i]);
+				} else if ("--mix".equals(args[i]) && i + 1 < args.length) {
+					String[] percents = args[++i].split(",");
+					if (percents.length != 3) {
+						throw new IllegalArgumentException("--mix expects read,write,remove percentages : "
+								+ args[i]);
+					}
+					for (int p = 0; p < 3; p++) {
+						mix[p] = Integer.parseInt(percents[p].trim());
+					}
+				} else {
+					System.err.println("Unknown argument " + args[i]);
+				}
+			}
+			ConcurrentBenchmark benchmark = new ConcurrentBenchmark(100000, 2000, mix[0], mix[1], mix[2],
+					maxThreads);
+			benchmark.setHeadless(headless || benchmark.headless);
+			benchmark.run("ConcurrentHashMap.newKeySet", new CollectionFactory() {
+				@Override
+				public Collection<String> create() {
+					return ConcurrentHashMap.newKeySet();
+				}
+			});
+			benchmark.run(ConcurrentSkipListSet.class);
+			benchmark.run("synchronizedList(ArrayList)", new CollectionFactory() {
+				@Override
+				public Collection<String> create() {
+					return Collections.synchronizedList(new ArrayList<String>());
+				}
+			});
+			// every write copies the whole array, expect a very low throughput
+			benchmark.run(CopyOnWriteArrayList.class);
+			benchmark.run(CopyOnWriteArraySet.class);
+			benchmark.displayResults();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
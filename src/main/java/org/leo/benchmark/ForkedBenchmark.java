@@ -0,0 +1,227 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Run the {@link Benchmark} of each implementation, or of each task of each
+ * implementation, in a new JVM started with the flags of this one, then merge
+ * the results in one report.
+ * <p>
+ * In a single JVM, the implementations measured last run with call sites
+ * already made megamorphic by the previous ones, and with a fuller heap; a
+ * fresh JVM gives each of them the same starting point, whatever the order.
+ *
+ * @author Tommy Ettinger
+ */
+public class ForkedBenchmark {
+
+	/** Merged results, used for the display and the exports */
+	private final Benchmark benchmark;
+
+	/** Arguments given to every forked benchmark */
+	private final List<String> benchmarkArgs;
+
+	/** JVM flags of the forked benchmarks */
+	private List<String> jvmArgs;
+
+	/** Fork a JVM for every task instead of every implementation */
+	private boolean perTask;
+
+	/** Number of forked JVMs that failed */
+	private int failures;
+
+	/**
+	 * Constructor
+	 *
+	 * @param benchmark benchmark receiving the merged results, with the same
+	 *            settings as the forked ones
+	 * @param benchmarkArgs command line of the forked benchmarks, without
+	 *            --class, --task or the exports
+	 */
+	public ForkedBenchmark(Benchmark benchmark, List<String> benchmarkArgs) {
+		this.benchmark = benchmark;
+		this.benchmarkArgs = new ArrayList<>(benchmarkArgs);
+		jvmArgs = new ArrayList<>();
+		for (String arg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+			// a second JVM cannot listen on the port of the debugger
+			if (!arg.startsWith("-agentlib:jdwp") && !arg.startsWith("-Xrunjdwp")) {
+				jvmArgs.add(arg);
+			}
+		}
+	}
+
+	/**
+	 * @param jvmArgs flags of the forked JVMs, the ones of this JVM by
+	 *            default
+	 */
+	public void setJvmArgs(List<String> jvmArgs) {
+		this.jvmArgs = new ArrayList<>(jvmArgs);
+	}
+
+	/**
+	 * @param perTask true to fork a JVM for every task, false (the default)
+	 *            for every implementation
+	 */
+	public void setPerTask(boolean perTask) {
+		this.perTask = perTask;
+	}
+
+	/**
+	 * Benchmark the given collection in forked JVMs and merge its results
+	 *
+	 * @param collectionClass the collection
+	 */
+	public void run(Class<?> collectionClass) {
+		if (!perTask) {
+			fork(collectionClass, null);
+			return;
+		}
+		for (String task : benchmark.listTasks(collectionClass)) {
+			fork(collectionClass, task);
+		}
+	}
+
+	/**
+	 * Run one forked benchmark and merge its results
+	 *
+	 * @param collectionClass the collection
+	 * @param task the only task to run, all of them if null
+	 */
+	private void fork(Class<?> collectionClass, String task) {
+		File csv = null;
+		try {
+			csv = File.createTempFile("benchmark-fork", ".csv");
+			List<String> command = new ArrayList<>();
+			command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+			command.addAll(jvmArgs);
+			command.add("-cp");
+			command.add(System.getProperty("java.class.path"));
+			command.add(Benchmark.class.getName());
+			command.addAll(benchmarkArgs);
+			command.add("--headless");
+			command.add("--class");
+			command.add(collectionClass.getName());
+			if (task != null) {
+				command.add("--task");
+				command.add(task);
+			}
+			command.add("--csv");
+			command.add(csv.getPath());
+			Process process = new ProcessBuilder(command).inheritIO().start();
+			int exit = process.waitFor();
+			if (exit != 0) {
+				throw new IOException("Forked JVM exited with " + exit);
+			}
+			for (BenchResult result : ResultExporter.readCsv(csv)) {
+				benchmark.addResult(result);
+			}
+		} catch (IOException | ClassNotFoundException e) {
+			failures++;
+			System.err.println("Failed running forked benchmark on class " + collectionClass.getCanonicalName()
+					+ (task == null ? "" : ", task " + task));
+			e.printStackTrace();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			if (csv != null && !csv.delete()) {
+				csv.deleteOnExit();
+			}
+		}
+	}
+
+	/**
+	 * @return number of forked JVMs that failed, their results are missing
+	 */
+	public int getFailures() {
+		return failures;
+	}
+
+	/**
+	 * Main
+	 *
+	 * @param args the settings of {@link Benchmark#main(String[])}, passed to
+	 *            every fork, --class name (repeatable) to replace the default
+	 *            structures, --json file and --csv file to write the merged
+	 *            results, --per-task to fork a JVM for every task,
+	 *            --jvm-args "flags" to replace the flags of this JVM
+	 */
+	public static void main(String[] args) {
+		try {
+			Benchmark benchmark = Benchmark.fromArgs(args);
+			List<String> benchmarkArgs = new ArrayList<>();
+			List<Class<?>> classes = new ArrayList<>();
+			List<String> jvmArgs = null;
+			File jsonFile = null;
+			File csvFile = null;
+			boolean perTask = false;
+			for (int i = 0; i < args.length; i++) {
+				int last = benchmark.parseArgument(args, i);
+				if (last >= 0) {
+					benchmarkArgs.addAll(Arrays.asList(args).subList(i, last + 1));
+					i = last;
+				} else if ("--json".equals(args[i]) && i + 1 < args.length) {
+					jsonFile = new File(args[++i]);
+				} else if ("--csv".equals(args[i]) && i + 1 < args.length) {
+					csvFile = new File(args[++i]);
+				} else if ("--class".equals(args[i]) && i + 1 < args.length) {
+					classes.add(Class.forName(args[++i]));
+				} else if ("--per-task".equals(args[i])) {
+					perTask = true;
+				} else if ("--jvm-args".equals(args[i]) && i + 1 < args.length) {
+					String flags = args[++i].trim();
+					jvmArgs = flags.isEmpty() ? new ArrayList<String>() : Arrays.asList(flags.split("\\s+"));
+				} else {
+					System.err.println("Unknown argument " + args[i]);
+				}
+			}
+			if (classes.isEmpty()) {
+				classes = Benchmark.defaultClasses();
+			}
+			ForkedBenchmark forked = new ForkedBenchmark(benchmark, benchmarkArgs);
+			forked.setPerTask(perTask);
+			if (jvmArgs != null) {
+				forked.setJvmArgs(jvmArgs);
+			}
+			for (Class<?> clazz : classes) {
+				forked.run(clazz);
+			}
+			System.out.println("Merged " + benchmark.getResults().size() + " result(s)"
+					+ (forked.getFailures() > 0 ? ", " + forked.getFailures() + " forked JVM(s) failed" : ""));
+			if (jsonFile != null) {
+				benchmark.exportJson(jsonFile);
+			}
+			if (csvFile != null) {
+				benchmark.exportCsv(csvFile);
+			}
+			benchmark.displayBenchmarkResults();
+			benchmark.displayThroughputResults();
+			benchmark.displayAllocationResults();
+			benchmark.displayLatencyResults();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
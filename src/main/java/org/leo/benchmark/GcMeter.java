@@ -0,0 +1,160 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collection count and time of all the garbage collectors of the JVM, and a
+ * way to wait for a quiet heap between two measures
+ *
+ * @author Tommy Ettinger
+ */
+public final class GcMeter {
+
+	/** Garbage collectors, young and old generations */
+	private static final List<GarbageCollectorMXBean> COLLECTORS = ManagementFactory.getGarbageCollectorMXBeans();
+
+	/** Heap memory pools (eden, survivor, old...) */
+	private static final List<MemoryPoolMXBean> HEAP_POOLS = new ArrayList<>();
+
+	/** Notified at the end of each collection, on JVMs sending GC notifications */
+	private static final Object GC_DONE = new Object();
+
+	/**
+	 * Used heap difference in bytes between two consecutive collections under
+	 * which the heap is considered stable, whatever its size
+	 */
+	private static final long STABLE_BYTES = 256 * 1024;
+
+	/** Relative used heap difference under which the heap is considered stable */
+	private static final double STABLE_RATIO = 0.01;
+
+	static {
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				HEAP_POOLS.add(pool);
+			}
+		}
+		NotificationListener listener = new NotificationListener() {
+			@Override
+			public void handleNotification(Notification notification, Object handback) {
+				synchronized (GC_DONE) {
+					GC_DONE.notifyAll();
+				}
+			}
+		};
+		for (GarbageCollectorMXBean collector : COLLECTORS) {
+			if (collector instanceof NotificationEmitter) {
+				((NotificationEmitter) collector).addNotificationListener(listener, null, null);
+			}
+		}
+	}
+
+	private GcMeter() {
+	}
+
+	/**
+	 * Collect the garbage until the used heap stops shrinking, that is until
+	 * two consecutive collections leave about the same used heap, or until
+	 * the time limit
+	 *
+	 * @param maxMillis time limit in ms
+	 * @return true if the heap is stable, false if the time limit was reached
+	 */
+	public static boolean settle(long maxMillis) {
+		long deadline = System.nanoTime() + maxMillis * 1000000;
+		long previousUsed = -1;
+		while (System.nanoTime() < deadline) {
+			long count = collectionCount();
+			System.gc();
+			// System.gc() may return before the end of a concurrent collection
+			awaitCollection(count, deadline);
+			long used = usedHeap();
+			if (previousUsed >= 0 && Math.abs(previousUsed - used) <= Math.max(STABLE_BYTES,
+					(long) (previousUsed * STABLE_RATIO))) {
+				return true;
+			}
+			previousUsed = used;
+		}
+		return false;
+	}
+
+	/**
+	 * Wait for the collection count to go past the given count, woken up by
+	 * the GC notifications when available, polling otherwise
+	 *
+	 * @param count collection count before the collection
+	 * @param deadline time limit, in {@link System#nanoTime()} terms
+	 */
+	private static void awaitCollection(long count, long deadline) {
+		synchronized (GC_DONE) {
+			while (collectionCount() <= count && System.nanoTime() < deadline) {
+				try {
+					GC_DONE.wait(5);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the used bytes of all the heap pools
+	 */
+	public static long usedHeap() {
+		long used = 0;
+		for (MemoryPoolMXBean pool : HEAP_POOLS) {
+			used += pool.getUsage().getUsed();
+		}
+		return used;
+	}
+
+	/**
+	 * @return the number of collections done so far by all the collectors
+	 */
+	public static long collectionCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean collector : COLLECTORS) {
+			// -1 when the collector does not report it
+			count += Math.max(0, collector.getCollectionCount());
+		}
+		return count;
+	}
+
+	/**
+	 * @return the time in ms spent so far in all the collectors
+	 */
+	public static long collectionTime() {
+		long time = 0;
+		for (GarbageCollectorMXBean collector : COLLECTORS) {
+			time += Math.max(0, collector.getCollectionTime());
+		}
+		return time;
+	}
+}
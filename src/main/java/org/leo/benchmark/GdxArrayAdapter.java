@@ -0,0 +1,167 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import com.badlogic.gdx.utils.Array;
+
+import java.lang.reflect.Constructor;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.function.Predicate;
+
+/**
+ * Adapter for libGDX {@link Array}, compared with equals() like a
+ * {@link java.util.List} would
+ *
+ * @author Tommy Ettinger
+ */
+public class GdxArrayAdapter<T> implements CollectionAdapter<T> {
+
+	/** Adapted array */
+	private Array<T> array;
+
+	/**
+	 * Constructor
+	 *
+	 * @param array adapted array
+	 */
+	public GdxArrayAdapter(Array<T> array) {
+		this.array = array;
+	}
+
+	@Override
+	public Array<T> getTarget() {
+		return array;
+	}
+
+	@Override
+	public Class<?> getImplementationClass() {
+		return array.getClass();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void renew() throws ReflectiveOperationException {
+		Constructor<?> constructor = array.getClass().getDeclaredConstructor((Class<?>[]) null);
+		constructor.setAccessible(true);
+		array = (Array<T>) constructor.newInstance();
+	}
+
+	@Override
+	public boolean add(T item) {
+		array.add(item);
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean remove(Object item) {
+		return array.removeValue((T) item, false);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean contains(Object item) {
+		return array.contains((T) item, false);
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return array.iterator();
+	}
+
+	@Override
+	public void clear() {
+		array.clear();
+	}
+
+	@Override
+	public int size() {
+		return array.size;
+	}
+
+	@Override
+	public Object[] toArray() {
+		return array.toArray();
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends T> items) {
+		array.ensureCapacity(items.size());
+		for (T item : items) {
+			array.add(item);
+		}
+		return !items.isEmpty();
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> items) {
+		int oldSize = array.size;
+		for (int i = array.size - 1; i >= 0; i--) {
+			if (items.contains(array.get(i))) {
+				array.removeIndex(i);
+			}
+		}
+		return oldSize != array.size;
+	}
+
+	@Override
+	public boolean containsAll(Collection<?> items) {
+		for (Object item : items) {
+			if (!contains(item)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> items) {
+		int oldSize = array.size;
+		for (int i = array.size - 1; i >= 0; i--) {
+			if (!items.contains(array.get(i))) {
+				array.removeIndex(i);
+			}
+		}
+		return oldSize != array.size;
+	}
+
+	@Override
+	public boolean removeIf(Predicate<? super T> filter) {
+		int oldSize = array.size;
+		for (int i = array.size - 1; i >= 0; i--) {
+			if (filter.test(array.get(i))) {
+				array.removeIndex(i);
+			}
+		}
+		return oldSize != array.size;
+	}
+
+	@Override
+	public boolean isSortable() {
+		return true;
+	}
+
+	@Override
+	public boolean sort(Comparator<? super T> comparator) {
+		array.sort(comparator);
+		return true;
+	}
+}
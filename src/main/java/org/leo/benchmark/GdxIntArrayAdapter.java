@@ -0,0 +1,96 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Adapter for libGDX {@link IntArray}
+ *
+ * @author Tommy Ettinger
+ */
+public class GdxIntArrayAdapter implements IntCollectionAdapter {
+
+	/** Adapted structure */
+	private IntArray array;
+
+	/**
+	 * Constructor
+	 *
+	 * @param array adapted structure
+	 */
+	public GdxIntArrayAdapter(IntArray array) {
+		this.array = array;
+	}
+
+	@Override
+	public IntArray getTarget() {
+		return array;
+	}
+
+	@Override
+	public Class<?> getImplementationClass() {
+		return array.getClass();
+	}
+
+	@Override
+	public void renew() throws ReflectiveOperationException {
+		Constructor<?> constructor = array.getClass().getDeclaredConstructor((Class<?>[]) null);
+		constructor.setAccessible(true);
+		array = (IntArray) constructor.newInstance();
+	}
+
+	@Override
+	public void clear() {
+		array.clear();
+	}
+
+	@Override
+	public int size() {
+		return array.size;
+	}
+
+	@Override
+	public boolean add(int item) {
+		array.add(item);
+		return true;
+	}
+
+	@Override
+	public boolean remove(int item) {
+		return array.removeValue(item);
+	}
+
+	@Override
+	public boolean contains(int item) {
+		return array.contains(item);
+	}
+
+	@Override
+	public long iterate() {
+		long sum = 0;
+		int[] items = array.items;
+		for (int i = 0, n = array.size; i < n; i++) {
+			sum += items[i];
+		}
+		return sum;
+	}
+}
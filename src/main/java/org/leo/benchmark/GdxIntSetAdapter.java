@@ -0,0 +1,95 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import com.badlogic.gdx.utils.IntSet;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Adapter for libGDX {@link IntSet}
+ *
+ * @author Tommy Ettinger
+ */
+public class GdxIntSetAdapter implements IntCollectionAdapter {
+
+	/** Adapted structure */
+	private IntSet set;
+
+	/**
+	 * Constructor
+	 *
+	 * @param set adapted structure
+	 */
+	public GdxIntSetAdapter(IntSet set) {
+		this.set = set;
+	}
+
+	@Override
+	public IntSet getTarget() {
+		return set;
+	}
+
+	@Override
+	public Class<?> getImplementationClass() {
+		return set.getClass();
+	}
+
+	@Override
+	public void renew() throws ReflectiveOperationException {
+		Constructor<?> constructor = set.getClass().getDeclaredConstructor((Class<?>[]) null);
+		constructor.setAccessible(true);
+		set = (IntSet) constructor.newInstance();
+	}
+
+	@Override
+	public void clear() {
+		set.clear();
+	}
+
+	@Override
+	public int size() {
+		return set.size;
+	}
+
+	@Override
+	public boolean add(int item) {
+		return set.add(item);
+	}
+
+	@Override
+	public boolean remove(int item) {
+		return set.remove(item);
+	}
+
+	@Override
+	public boolean contains(int item) {
+		return set.contains(item);
+	}
+
+	@Override
+	public long iterate() {
+		long sum = 0;
+		IntSet.IntSetIterator it = set.iterator();
+		while (it.hasNext) {
+			sum += it.next();
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,103 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import com.badlogic.gdx.utils.LongMap;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Adapter for libGDX {@link LongMap}, keys are widened to long and not
+ * boxed, but LongMap values are objects so they are boxed like in a
+ * {@link java.util.HashMap}
+ *
+ * @author Tommy Ettinger
+ */
+public class GdxLongMapAdapter implements IntMapAdapter {
+
+	/** Adapted structure */
+	private LongMap<Integer> map;
+
+	/**
+	 * Constructor
+	 *
+	 * @param map adapted structure
+	 */
+	public GdxLongMapAdapter(LongMap<Integer> map) {
+		this.map = map;
+	}
+
+	@Override
+	public LongMap<Integer> getTarget() {
+		return map;
+	}
+
+	@Override
+	public Class<?> getImplementationClass() {
+		return map.getClass();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void renew() throws ReflectiveOperationException {
+		Constructor<?> constructor = map.getClass().getDeclaredConstructor((Class<?>[]) null);
+		constructor.setAccessible(true);
+		map = (LongMap<Integer>) constructor.newInstance();
+	}
+
+	@Override
+	public void clear() {
+		map.clear();
+	}
+
+	@Override
+	public int size() {
+		return map.size;
+	}
+
+	@Override
+	public void put(int key, int value) {
+		map.put(key, value);
+	}
+
+	@Override
+	public int get(int key, int defaultValue) {
+		Integer value = map.get(key);
+		return value == null ? defaultValue : value;
+	}
+
+	@Override
+	public boolean containsKey(int key) {
+		return map.containsKey(key);
+	}
+
+	@Override
+	public void remove(int key) {
+		map.remove(key);
+	}
+
+	@Override
+	public long iterate() {
+		long sum = 0;
+		for (LongMap.Entry<Integer> entry : map.entries()) {
+			sum += entry.key + entry.value;
+		}
+		return sum;
+	}
+}
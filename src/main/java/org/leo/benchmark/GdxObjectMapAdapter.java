@@ -0,0 +1,163 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.lang.reflect.Constructor;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Adapter for libGDX {@link ObjectMap} and its subclasses such as
+ * {@link com.badlogic.gdx.utils.OrderedMap}. Operations missing from libGDX
+ * are done with the get/put sequence a libGDX user would write.
+ *
+ * @author Tommy Ettinger
+ */
+public class GdxObjectMapAdapter<K, V> implements MapAdapter<K, V> {
+
+	/** Adapted map */
+	private ObjectMap<K, V> map;
+
+	/**
+	 * Constructor
+	 *
+	 * @param map adapted map
+	 */
+	public GdxObjectMapAdapter(ObjectMap<K, V> map) {
+		this.map = map;
+	}
+
+	@Override
+	public ObjectMap<K, V> getTarget() {
+		return map;
+	}
+
+	@Override
+	public Class<?> getImplementationClass() {
+		return map.getClass();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void renew() throws ReflectiveOperationException {
+		Constructor<?> constructor = map.getClass().getDeclaredConstructor((Class<?>[]) null);
+		constructor.setAccessible(true);
+		map = (ObjectMap<K, V>) constructor.newInstance();
+	}
+
+	@Override
+	public void clear() {
+		map.clear();
+	}
+
+	@Override
+	public int size() {
+		return map.size;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		return map.put(key, value);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(Object key) {
+		return map.get((K) key);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V remove(Object key) {
+		return map.remove((K) key);
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> items) {
+		map.ensureCapacity(items.size());
+		for (Map.Entry<? extends K, ? extends V> entry : items.entrySet()) {
+			map.put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean containsKey(Object key) {
+		return map.containsKey((K) key);
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		return map.containsValue(value, false);
+	}
+
+	@Override
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		V value = map.get(key);
+		if (value == null) {
+			value = mappingFunction.apply(key);
+			if (value != null) {
+				map.put(key, value);
+			}
+		}
+		return value;
+	}
+
+	@Override
+	public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		V old = map.get(key);
+		V merged = old == null ? value : remappingFunction.apply(old, value);
+		if (merged == null) {
+			map.remove(key);
+		} else {
+			map.put(key, merged);
+		}
+		return merged;
+	}
+
+	@Override
+	public int iterateEntries() {
+		int sum = 0;
+		for (ObjectMap.Entry<K, V> entry : map.entries()) {
+			sum += entry.key.hashCode() + entry.value.hashCode();
+		}
+		return sum;
+	}
+
+	@Override
+	public int iterateKeys() {
+		int sum = 0;
+		for (K key : map.keys()) {
+			sum += key.hashCode();
+		}
+		return sum;
+	}
+
+	@Override
+	public int iterateValues() {
+		int sum = 0;
+		for (V value : map.values()) {
+			sum += value.hashCode();
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,179 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectSet;
+import com.badlogic.gdx.utils.OrderedSet;
+
+import java.lang.reflect.Constructor;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.function.Predicate;
+
+/**
+ * Adapter for libGDX {@link ObjectSet} and its subclasses such as
+ * {@link OrderedSet}. Bulk operations missing from libGDX are done with the
+ * same loops a libGDX user would write.
+ *
+ * @author Tommy Ettinger
+ */
+public class GdxObjectSetAdapter<T> implements CollectionAdapter<T> {
+
+	/** Adapted set */
+	private ObjectSet<T> set;
+
+	/**
+	 * Constructor
+	 *
+	 * @param set adapted set
+	 */
+	public GdxObjectSetAdapter(ObjectSet<T> set) {
+		this.set = set;
+	}
+
+	@Override
+	public ObjectSet<T> getTarget() {
+		return set;
+	}
+
+	@Override
+	public Class<?> getImplementationClass() {
+		return set.getClass();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void renew() throws ReflectiveOperationException {
+		Constructor<?> constructor = set.getClass().getDeclaredConstructor((Class<?>[]) null);
+		constructor.setAccessible(true);
+		set = (ObjectSet<T>) constructor.newInstance();
+	}
+
+	@Override
+	public boolean add(T item) {
+		return set.add(item);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean remove(Object item) {
+		return set.remove((T) item);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean contains(Object item) {
+		return set.contains((T) item);
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return set.iterator();
+	}
+
+	@Override
+	public void clear() {
+		set.clear();
+	}
+
+	@Override
+	public int size() {
+		return set.size;
+	}
+
+	@Override
+	public Object[] toArray() {
+		if (set instanceof OrderedSet) {
+			return ((OrderedSet<T>) set).orderedItems().toArray();
+		}
+		return set.iterator().toArray().toArray();
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends T> items) {
+		int oldSize = set.size;
+		set.ensureCapacity(items.size());
+		for (T item : items) {
+			set.add(item);
+		}
+		return oldSize != set.size;
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> items) {
+		int oldSize = set.size;
+		for (Object item : items) {
+			remove(item);
+		}
+		return oldSize != set.size;
+	}
+
+	@Override
+	public boolean containsAll(Collection<?> items) {
+		for (Object item : items) {
+			if (!contains(item)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> items) {
+		Array<T> removed = new Array<>();
+		for (T item : set) {
+			if (!items.contains(item)) {
+				removed.add(item);
+			}
+		}
+		for (int i = 0; i < removed.size; i++) {
+			set.remove(removed.get(i));
+		}
+		return removed.size > 0;
+	}
+
+	@Override
+	public boolean removeIf(Predicate<? super T> filter) {
+		int oldSize = set.size;
+		Iterator<T> it = set.iterator();
+		while (it.hasNext()) {
+			if (filter.test(it.next())) {
+				it.remove();
+			}
+		}
+		return oldSize != set.size;
+	}
+
+	@Override
+	public boolean isSortable() {
+		return set instanceof OrderedSet;
+	}
+
+	@Override
+	public boolean sort(Comparator<? super T> comparator) {
+		if (set instanceof OrderedSet) {
+			// the iteration order of an OrderedSet is the one of these items
+			((OrderedSet<T>) set).orderedItems().sort(comparator);
+			return true;
+		}
+		return false;
+	}
+}
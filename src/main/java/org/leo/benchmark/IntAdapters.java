@@ -0,0 +1,84 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntIntMap;
+import com.badlogic.gdx.utils.IntSet;
+import com.badlogic.gdx.utils.LongMap;
+import squidpony.squidmath.IntIntOrderedMap;
+import squidpony.squidmath.IntVLA;
+
+import java.lang.reflect.Constructor;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Create the {@link IntCollectionAdapter} or {@link IntMapAdapter} matching a
+ * class of the primitive benchmark
+ *
+ * @author Tommy Ettinger
+ */
+public final class IntAdapters {
+
+	private IntAdapters() {
+	}
+
+	/**
+	 * Create a new empty instance of the given class, using its no-arg
+	 * constructor, and wrap it in the matching adapter. {@link Collection}s
+	 * and {@link Map}s are considered to hold {@link Integer}s.
+	 *
+	 * @param clazz structure class
+	 * @return an {@link IntCollectionAdapter} or an {@link IntMapAdapter}
+	 * @throws ReflectiveOperationException if the class cannot be instantiated
+	 * @throws IllegalArgumentException if no adapter handles this class
+	 */
+	@SuppressWarnings("unchecked")
+	public static StructureAdapter create(Class<?> clazz) throws ReflectiveOperationException {
+		Constructor<?> constructor = clazz.getDeclaredConstructor((Class<?>[]) null);
+		constructor.setAccessible(true);
+		Object instance = constructor.newInstance();
+		if (instance instanceof IntArray) {
+			return new GdxIntArrayAdapter((IntArray) instance);
+		}
+		if (instance instanceof IntSet) {
+			return new GdxIntSetAdapter((IntSet) instance);
+		}
+		if (instance instanceof IntVLA) {
+			return new SquidIntVLAAdapter((IntVLA) instance);
+		}
+		if (instance instanceof Collection) {
+			return new BoxedIntCollectionAdapter((Collection<Integer>) instance);
+		}
+		if (instance instanceof IntIntMap) {
+			return new GdxIntIntMapAdapter((IntIntMap) instance);
+		}
+		if (instance instanceof LongMap) {
+			return new GdxLongMapAdapter((LongMap<Integer>) instance);
+		}
+		if (instance instanceof IntIntOrderedMap) {
+			return new SquidIntIntOrderedMapAdapter((IntIntOrderedMap) instance);
+		}
+		if (instance instanceof Map) {
+			return new BoxedIntMapAdapter((Map<Integer, Integer>) instance);
+		}
+		throw new IllegalArgumentException("No int adapter for " + clazz.getName());
+	}
+}
@@ -0,0 +1,41 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+/**
+ * Common view over the int collections of the primitive benchmark, boxed or
+ * not
+ *
+ * @author Tommy Ettinger
+ */
+public interface IntCollectionAdapter extends StructureAdapter {
+
+	boolean add(int item);
+
+	boolean remove(int item);
+
+	boolean contains(int item);
+
+	/**
+	 * Walk all the elements with the native iteration of the collection
+	 *
+	 * @return sum of the elements, so the walk can't be optimized away
+	 */
+	long iterate();
+}
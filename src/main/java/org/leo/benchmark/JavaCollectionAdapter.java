@@ -0,0 +1,145 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import squidpony.squidmath.OrderedSet;
+
+import java.lang.reflect.Constructor;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Adapter for {@link Collection} implementations (java.util, commons
+ * collections, squidlib sets...), every call is forwarded as is
+ *
+ * @author Tommy Ettinger
+ */
+public class JavaCollectionAdapter<T> implements CollectionAdapter<T> {
+
+	/** Adapted collection */
+	private Collection<T> collection;
+
+	/**
+	 * Constructor
+	 *
+	 * @param collection adapted collection
+	 */
+	public JavaCollectionAdapter(Collection<T> collection) {
+		this.collection = collection;
+	}
+
+	@Override
+	public Collection<T> getTarget() {
+		return collection;
+	}
+
+	@Override
+	public Class<?> getImplementationClass() {
+		return collection.getClass();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void renew() throws ReflectiveOperationException {
+		Constructor<?> constructor = collection.getClass().getDeclaredConstructor((Class<?>[]) null);
+		constructor.setAccessible(true);
+		collection = (Collection<T>) constructor.newInstance();
+	}
+
+	@Override
+	public boolean add(T item) {
+		return collection.add(item);
+	}
+
+	@Override
+	public boolean remove(Object item) {
+		return collection.remove(item);
+	}
+
+	@Override
+	public boolean contains(Object item) {
+		return collection.contains(item);
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return collection.iterator();
+	}
+
+	@Override
+	public void clear() {
+		collection.clear();
+	}
+
+	@Override
+	public int size() {
+		return collection.size();
+	}
+
+	@Override
+	public Object[] toArray() {
+		return collection.toArray();
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends T> items) {
+		return collection.addAll(items);
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> items) {
+		return collection.removeAll(items);
+	}
+
+	@Override
+	public boolean containsAll(Collection<?> items) {
+		return collection.containsAll(items);
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> items) {
+		return collection.retainAll(items);
+	}
+
+	@Override
+	public boolean removeIf(Predicate<? super T> filter) {
+		return collection.removeIf(filter);
+	}
+
+	@Override
+	public boolean isSortable() {
+		return collection instanceof List || collection instanceof OrderedSet;
+	}
+
+	@Override
+	public boolean sort(Comparator<? super T> comparator) {
+		if (collection instanceof List) {
+			((List<T>) collection).sort(comparator);
+			return true;
+		}
+		if (collection instanceof OrderedSet) {
+			((OrderedSet<T>) collection).sort(comparator);
+			return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,140 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import java.lang.reflect.Constructor;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Adapter for {@link Map} implementations (java.util, squidlib maps...), every
+ * call is forwarded as is
+ *
+ * @author Tommy Ettinger
+ */
+public class JavaMapAdapter<K, V> implements MapAdapter<K, V> {
+
+	/** Adapted map */
+	private Map<K, V> map;
+
+	/**
+	 * Constructor
+	 *
+	 * @param map adapted map
+	 */
+	public JavaMapAdapter(Map<K, V> map) {
+		this.map = map;
+	}
+
+	@Override
+	public Map<K, V> getTarget() {
+		return map;
+	}
+
+	@Override
+	public Class<?> getImplementationClass() {
+		return map.getClass();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void renew() throws ReflectiveOperationException {
+		Constructor<?> constructor = map.getClass().getDeclaredConstructor((Class<?>[]) null);
+		constructor.setAccessible(true);
+		map = (Map<K, V>) constructor.newInstance();
+	}
+
+	@Override
+	public void clear() {
+		map.clear();
+	}
+
+	@Override
+	public int size() {
+		return map.size();
+	}
+
+	@Override
+	public V put(K key, V value) {
+		return map.put(key, value);
+	}
+
+	@Override
+	public V get(Object key) {
+		return map.get(key);
+	}
+
+	@Override
+	public V remove(Object key) {
+		return map.remove(key);
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> items) {
+		map.putAll(items);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return map.containsKey(key);
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		return map.containsValue(value);
+	}
+
+	@Override
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		return map.computeIfAbsent(key, mappingFunction);
+	}
+
+	@Override
+	public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		return map.merge(key, value, remappingFunction);
+	}
+
+	@Override
+	public int iterateEntries() {
+		int sum = 0;
+		for (Map.Entry<K, V> entry : map.entrySet()) {
+			sum += entry.getKey().hashCode() + entry.getValue().hashCode();
+		}
+		return sum;
+	}
+
+	@Override
+	public int iterateKeys() {
+		int sum = 0;
+		for (K key : map.keySet()) {
+			sum += key.hashCode();
+		}
+		return sum;
+	}
+
+	@Override
+	public int iterateValues() {
+		int sum = 0;
+		for (V value : map.values()) {
+			sum += value.hashCode();
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,200 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+/**
+ * Log-linear histogram of latencies in ns, in the manner of HdrHistogram:
+ * values below 256 are counted exactly, larger ones in buckets whose width is
+ * 1/128 of their magnitude, so every percentile is within 1% of the recorded
+ * value whatever its scale, with a fixed footprint and no allocation when
+ * recording.
+ *
+ * @author Tommy Ettinger
+ */
+public class LatencyHistogram {
+
+	/** Bits of precision of each magnitude */
+	private static final int SUB_BITS = 7;
+
+	/** Number of values counted exactly, then of buckets per magnitude */
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+
+	/** Counts by bucket, enough magnitudes for any positive long */
+	private final long[] counts = new long[2 * SUB_COUNT + (63 - SUB_BITS) * SUB_COUNT];
+
+	/** Number of recorded values */
+	private long count;
+
+	/** Largest recorded value */
+	private long max;
+
+	/** Sum of the recorded values */
+	private double sum;
+
+	/**
+	 * Record a latency
+	 *
+	 * @param value latency in ns, negative values count as 0
+	 */
+	public void record(long value) {
+		record(value, 1);
+	}
+
+	/**
+	 * Record several calls that took the same time
+	 *
+	 * @param value latency in ns, negative values count as 0
+	 * @param times number of calls
+	 */
+	public void record(long value, int times) {
+		if (value < 0) {
+			value = 0;
+		}
+		counts[index(value)] += times;
+		count += times;
+		sum += (double) value * times;
+		if (value > max) {
+			max = value;
+		}
+	}
+
+	/**
+	 * Add the values recorded by another histogram
+	 *
+	 * @param other another histogram
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] += other.counts[i];
+		}
+		count += other.count;
+		sum += other.sum;
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * @param value a latency
+	 * @return index of its bucket
+	 */
+	private static int index(long value) {
+		if (value < 2 * SUB_COUNT) {
+			return (int) value;
+		}
+		// value >>> shift is in [SUB_COUNT, 2 * SUB_COUNT)
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+		return shift * SUB_COUNT + (int) (value >>> shift);
+	}
+
+	/**
+	 * @param index a bucket index
+	 * @return the largest value counted in this bucket
+	 */
+	private static long highestValue(int index) {
+		if (index < 2 * SUB_COUNT) {
+			return index;
+		}
+		int shift = index / SUB_COUNT - 1;
+		long lowest = (long) (index % SUB_COUNT + SUB_COUNT) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	/**
+	 * @return number of recorded values
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return largest recorded value, exact
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * @return mean of the recorded values, exact
+	 */
+	public double getMean() {
+		return count == 0 ? 0 : sum / count;
+	}
+
+	/**
+	 * @param percentile between 0 and 100
+	 * @return the value below or at which this percentage of the recorded
+	 *         values are, within 1%, 0 if nothing was recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(highestValue(i), max);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * @return the non-empty buckets as index:count pairs separated by
+	 *         semicolons, followed by the exact max and sum, see
+	 *         {@link #decode(String)}
+	 */
+	public String encode() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(max).append(';').append(sum);
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] != 0) {
+				sb.append(';').append(i).append(':').append(counts[i]);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @param encoded a histogram encoded by {@link #encode()}
+	 * @return the same histogram
+	 */
+	public static LatencyHistogram decode(String encoded) {
+		LatencyHistogram histogram = new LatencyHistogram();
+		String[] parts = encoded.split(";");
+		histogram.max = Long.parseLong(parts[0]);
+		histogram.sum = Double.parseDouble(parts[1]);
+		for (int i = 2; i < parts.length; i++) {
+			int colon = parts[i].indexOf(':');
+			long bucketCount = Long.parseLong(parts[i].substring(colon + 1));
+			histogram.counts[Integer.parseInt(parts[i].substring(0, colon))] = bucketCount;
+			histogram.count += bucketCount;
+		}
+		return histogram;
+	}
+
+	/**
+	 * @return p50, p90, p99, p99.9 and max
+	 */
+	@Override
+	public String toString() {
+		return "p50 " + getValueAtPercentile(50) + "ns, p90 " + getValueAtPercentile(90) + "ns, p99 "
+				+ getValueAtPercentile(99) + "ns, p99.9 " + getValueAtPercentile(99.9) + "ns, max " + max + "ns";
+	}
+}
@@ -0,0 +1,70 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Common view over the maps that can be benchmarked, whether they implement
+ * {@link Map} or not
+ *
+ * @author Tommy Ettinger
+ */
+public interface MapAdapter<K, V> extends StructureAdapter {
+
+	V put(K key, V value);
+
+	V get(Object key);
+
+	V remove(Object key);
+
+	void putAll(Map<? extends K, ? extends V> map);
+
+	boolean containsKey(Object key);
+
+	boolean containsValue(Object value);
+
+	V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction);
+
+	V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction);
+
+	/**
+	 * Walk all the entries with the native entry iterator of the map
+	 *
+	 * @return sum of the key and value hash codes, so the walk can't be
+	 *         optimized away
+	 */
+	int iterateEntries();
+
+	/**
+	 * Walk all the keys with the native key iterator of the map
+	 *
+	 * @return sum of the key hash codes
+	 */
+	int iterateKeys();
+
+	/**
+	 * Walk all the values with the native value iterator of the map
+	 *
+	 * @return sum of the value hash codes
+	 */
+	int iterateValues();
+}
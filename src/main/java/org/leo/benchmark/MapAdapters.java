@@ -0,0 +1,66 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.lang.reflect.Constructor;
+import java.util.Map;
+
+/**
+ * Create the {@link MapAdapter} matching a map class
+ *
+ * @author Tommy Ettinger
+ */
+public final class MapAdapters {
+
+	private MapAdapters() {
+	}
+
+	/**
+	 * @param clazz map class
+	 * @return true if {@link #create(Class)} can adapt instances of this class
+	 */
+	public static boolean isSupported(Class<?> clazz) {
+		return Map.class.isAssignableFrom(clazz) || ObjectMap.class.isAssignableFrom(clazz);
+	}
+
+	/**
+	 * Create a new empty instance of the given class, using its no-arg
+	 * constructor, and wrap it in the matching adapter
+	 *
+	 * @param clazz map class
+	 * @return the adapter
+	 * @throws ReflectiveOperationException if the class cannot be instantiated
+	 * @throws IllegalArgumentException if no adapter handles this class
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K, V> MapAdapter<K, V> create(Class<?> clazz) throws ReflectiveOperationException {
+		if (!isSupported(clazz)) {
+			throw new IllegalArgumentException("No adapter for " + clazz.getName());
+		}
+		Constructor<?> constructor = clazz.getDeclaredConstructor((Class<?>[]) null);
+		constructor.setAccessible(true);
+		Object instance = constructor.newInstance();
+		if (instance instanceof Map) {
+			return new JavaMapAdapter<>((Map<K, V>) instance);
+		}
+		return new GdxObjectMapAdapter<>((ObjectMap<K, V>) instance);
+	}
+}
@@ -0,0 +1,119 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import java.lang.instrument.Instrumentation;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Java agent giving access to {@link Instrumentation#getObjectSize(Object)},
+ * start the JVM with -javaagent:target/benchmarks-0.0.1.jar
+ * <p>
+ * On Java 9 and later, the agent also opens the packages of java.base so that
+ * {@link ObjectGraphWalker} can read the private fields of the JDK
+ * collections
+ *
+ * @author Tommy Ettinger
+ */
+public final class MemoryAgent {
+
+	/** Instrumentation given by the JVM, null if the agent is not loaded */
+	private static volatile Instrumentation instrumentation;
+
+	private MemoryAgent() {
+	}
+
+	/**
+	 * Entry point when the agent is given on the command line
+	 *
+	 * @param args agent arguments, unused
+	 * @param inst instrumentation
+	 */
+	public static void premain(String args, Instrumentation inst) {
+		instrumentation = inst;
+		openJavaBase(inst);
+	}
+
+	/**
+	 * Entry point when the agent is attached to a running JVM
+	 *
+	 * @param args agent arguments, unused
+	 * @param inst instrumentation
+	 */
+	public static void agentmain(String args, Instrumentation inst) {
+		premain(args, inst);
+	}
+
+	/**
+	 * @return true if the agent is loaded
+	 */
+	public static boolean isAvailable() {
+		return instrumentation != null;
+	}
+
+	/**
+	 * @param object any object
+	 * @return the shallow size of the object in bytes, as computed by the JVM
+	 * @throws IllegalStateException if the agent is not loaded
+	 */
+	public static long getObjectSize(Object object) {
+		Instrumentation inst = instrumentation;
+		if (inst == null) {
+			throw new IllegalStateException("Memory agent not loaded, start the JVM with -javaagent:<benchmarks jar>");
+		}
+		return inst.getObjectSize(object);
+	}
+
+	/**
+	 * Open every package of java.base to the unnamed module of the agent, done
+	 * by reflection as the module API does not exist on Java 8
+	 *
+	 * @param inst instrumentation
+	 */
+	@SuppressWarnings("unchecked")
+	private static void openJavaBase(Instrumentation inst) {
+		Method getModule;
+		try {
+			getModule = Class.class.getMethod("getModule");
+		} catch (NoSuchMethodException e) {
+			// Java 8, no module to open
+			return;
+		}
+		try {
+			Object base = getModule.invoke(Object.class);
+			Object unnamed = getModule.invoke(MemoryAgent.class);
+			Set<String> packages = (Set<String>) base.getClass().getMethod("getPackages").invoke(base);
+			Map<String, Set<Object>> opens = new HashMap<>();
+			for (String name : packages) {
+				opens.put(name, Collections.singleton(unnamed));
+			}
+			Method redefineModule = Instrumentation.class.getMethod("redefineModule", base.getClass(), Set.class,
+					Map.class, Map.class, Set.class, Map.class);
+			redefineModule.invoke(inst, base, Collections.emptySet(), Collections.emptyMap(), opens,
+					Collections.emptySet(), Collections.emptyMap());
+		} catch (ReflectiveOperationException e) {
+			System.err.println("Could not open java.base, the JDK collections will not be walked");
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,294 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compute the deep size of an object, that is the sum of the shallow sizes of
+ * every object reachable from it, with a breakdown by class (table arrays,
+ * nodes, entries...)
+ * <p>
+ * The shallow sizes come from {@link MemoryAgent} when it is loaded, otherwise
+ * they are estimated with the layout of a 64 bits JVM with compressed
+ * references. Class objects, enum constants and the given excluded objects
+ * (typically the elements shared by all the tested structures) are neither
+ * counted nor walked.
+ *
+ * @author Tommy Ettinger
+ */
+public class ObjectGraphWalker {
+
+	/** Objects that are not part of the measured structures */
+	private final Set<Object> excluded;
+
+	/** Reference fields by class, including the inherited ones */
+	private final Map<Class<?>, Field[]> referenceFields = new HashMap<>();
+
+	/** Estimated shallow size by class, when the agent is not loaded */
+	private final Map<Class<?>, Long> estimatedSizes = new HashMap<>();
+
+	/** Classes whose fields could not be read, reported once */
+	private final Set<Class<?>> inaccessible = Collections.newSetFromMap(new IdentityHashMap<Class<?>, Boolean>());
+
+	/**
+	 * Constructor
+	 *
+	 * @param excluded objects that are not counted, compared by identity
+	 */
+	public ObjectGraphWalker(Collection<?> excluded) {
+		this.excluded = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		this.excluded.addAll(excluded);
+	}
+
+	/**
+	 * @return true if the shallow sizes are the exact ones given by the JVM
+	 */
+	public static boolean isExact() {
+		return MemoryAgent.isAvailable();
+	}
+
+	/**
+	 * Walk the object graph from the given root
+	 *
+	 * @param root measured object
+	 * @return the deep size and its breakdown
+	 */
+	public Footprint walk(Object root) {
+		Footprint footprint = new Footprint();
+		Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		// explicit stack, linked structures are too deep for recursion
+		ArrayDeque<Object> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (!stack.isEmpty()) {
+			Object object = stack.pop();
+			if (!visited.add(object)) {
+				continue;
+			}
+			Class<?> clazz = object.getClass();
+			footprint.add(componentName(clazz), shallowSize(object));
+			if (clazz.isArray()) {
+				if (!clazz.getComponentType().isPrimitive()) {
+					for (int i = Array.getLength(object) - 1; i >= 0; i--) {
+						push(stack, Array.get(object, i));
+					}
+				}
+			} else {
+				for (Field field : referenceFields(clazz)) {
+					try {
+						push(stack, field.get(object));
+					} catch (IllegalAccessException e) {
+						// setAccessible failed, already reported
+					}
+				}
+			}
+		}
+		return footprint;
+	}
+
+	/**
+	 * Push an object to walk, unless it is out of the measured structure
+	 *
+	 * @param stack objects to walk
+	 * @param object referenced object
+	 */
+	private void push(ArrayDeque<Object> stack, Object object) {
+		if (object == null || object instanceof Class || object instanceof Enum || excluded.contains(object)) {
+			return;
+		}
+		stack.push(object);
+	}
+
+	/**
+	 * @param clazz class of a walked object
+	 * @return its non static reference fields, made accessible
+	 */
+	private Field[] referenceFields(Class<?> clazz) {
+		Field[] fields = referenceFields.get(clazz);
+		if (fields == null) {
+			List<Field> list = new ArrayList<>();
+			for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+				for (Field field : c.getDeclaredFields()) {
+					if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+						continue;
+					}
+					try {
+						field.setAccessible(true);
+						list.add(field);
+					} catch (RuntimeException e) {
+						// InaccessibleObjectException on Java 9+ without the agent
+						if (inaccessible.add(c)) {
+							System.err.println("Fields of " + c.getName() + " are not accessible, start the JVM with "
+									+ "-javaagent:<benchmarks jar> to walk them");
+						}
+					}
+				}
+			}
+			fields = list.toArray(new Field[0]);
+			referenceFields.put(clazz, fields);
+		}
+		return fields;
+	}
+
+	/**
+	 * @param object walked object
+	 * @return its shallow size in bytes
+	 */
+	private long shallowSize(Object object) {
+		if (MemoryAgent.isAvailable()) {
+			return MemoryAgent.getObjectSize(object);
+		}
+		Class<?> clazz = object.getClass();
+		if (clazz.isArray()) {
+			return align(16 + (long) Array.getLength(object) * fieldSize(clazz.getComponentType()));
+		}
+		Long size = estimatedSizes.get(clazz);
+		if (size == null) {
+			long fieldsSize = 0;
+			for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+				for (Field field : c.getDeclaredFields()) {
+					if (!Modifier.isStatic(field.getModifiers())) {
+						fieldsSize += fieldSize(field.getType());
+					}
+				}
+			}
+			size = align(12 + fieldsSize);
+			estimatedSizes.put(clazz, size);
+		}
+		return size;
+	}
+
+	/**
+	 * @param type field or array component type
+	 * @return its size in bytes, references being compressed
+	 */
+	private static int fieldSize(Class<?> type) {
+		if (type == long.class || type == double.class) {
+			return 8;
+		} else if (type == int.class || type == float.class || !type.isPrimitive()) {
+			return 4;
+		} else if (type == short.class || type == char.class) {
+			return 2;
+		}
+		return 1;
+	}
+
+	/**
+	 * @param size size in bytes
+	 * @return the size rounded up to the 8 bytes object alignment
+	 */
+	private static long align(long size) {
+		return (size + 7) & ~7L;
+	}
+
+	/**
+	 * @param clazz class of a walked object
+	 * @return a readable name, such as java.util.HashMap$Node[]
+	 */
+	private static String componentName(Class<?> clazz) {
+		return clazz.isArray() ? componentName(clazz.getComponentType()) + "[]" : clazz.getName();
+	}
+
+	/**
+	 * Deep size of an object graph, by class
+	 */
+	public static class Footprint {
+
+		/** Total size in bytes */
+		private long totalBytes;
+
+		/** Number of objects */
+		private long objectCount;
+
+		/** Size in bytes by class name */
+		private final Map<String, Long> bytes = new HashMap<>();
+
+		/** Number of objects by class name */
+		private final Map<String, Long> counts = new HashMap<>();
+
+		void add(String component, long size) {
+			totalBytes += size;
+			objectCount++;
+			Long previous = bytes.get(component);
+			bytes.put(component, previous == null ? size : previous + size);
+			previous = counts.get(component);
+			counts.put(component, previous == null ? 1 : previous + 1);
+		}
+
+		public long getTotalBytes() {
+			return totalBytes;
+		}
+
+		public long getObjectCount() {
+			return objectCount;
+		}
+
+		/**
+		 * @return the size in bytes by class name, largest first
+		 */
+		public Map<String, Long> getBytesByComponent() {
+			List<Map.Entry<String, Long>> entries = new ArrayList<>(bytes.entrySet());
+			Collections.sort(entries, new Comparator<Map.Entry<String, Long>>() {
+				@Override
+				public int compare(Map.Entry<String, Long> o1, Map.Entry<String, Long> o2) {
+					return Long.compare(o2.getValue(), o1.getValue());
+				}
+			});
+			Map<String, Long> sorted = new LinkedHashMap<>();
+			for (Map.Entry<String, Long> entry : entries) {
+				sorted.put(entry.getKey(), entry.getValue());
+			}
+			return sorted;
+		}
+
+		/**
+		 * @param component class name
+		 * @return the number of objects of that class
+		 */
+		public long getCount(String component) {
+			Long count = counts.get(component);
+			return count == null ? 0 : count;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append(totalBytes).append(" bytes in ").append(objectCount).append(" object(s)");
+			for (Map.Entry<String, Long> entry : getBytesByComponent().entrySet()) {
+				sb.append(System.lineSeparator()).append("    ").append(entry.getKey()).append(" : ")
+						.append(entry.getValue()).append(" bytes in ").append(getCount(entry.getKey()))
+						.append(" object(s)");
+			}
+			return sb.toString();
+		}
+	}
+}
@@ -0,0 +1,182 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * Collection forwarding every call to another one and recording it in a
+ * trace, to replay what an application really does on the benchmarked
+ * implementations. The elements of a non-empty collection are recorded as a
+ * first addAll; size() and isEmpty() are not recorded.
+ *
+ * @author Tommy Ettinger
+ */
+public class RecordingCollection<E> extends AbstractCollection<E> {
+
+	/** Recorded collection */
+	private final Collection<E> delegate;
+
+	/** Destination of the calls */
+	private final TraceRecorder recorder;
+
+	/**
+	 * Constructor
+	 *
+	 * @param delegate recorded collection
+	 * @param recorder destination of the calls, closed by the caller
+	 */
+	public RecordingCollection(Collection<E> delegate, TraceRecorder recorder) {
+		this.delegate = delegate;
+		this.recorder = recorder;
+		if (!delegate.isEmpty()) {
+			recorder.recordKeys(Trace.ADD_ALL, delegate, delegate.size());
+		}
+	}
+
+	@Override
+	public int size() {
+		return delegate.size();
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		Iterator<E> iterator = delegate.iterator();
+		recorder.record(Trace.ITERATOR, delegate.size());
+		return new RecordingIterator<>(iterator, delegate, recorder);
+	}
+
+	@Override
+	public boolean add(E e) {
+		boolean changed = delegate.add(e);
+		recorder.recordKey(Trace.ADD, e, delegate.size());
+		return changed;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		boolean changed = delegate.remove(o);
+		recorder.recordKey(Trace.REMOVE, o, delegate.size());
+		return changed;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		boolean found = delegate.contains(o);
+		recorder.recordKey(Trace.CONTAINS, o, delegate.size());
+		return found;
+	}
+
+	@Override
+	public void clear() {
+		delegate.clear();
+		recorder.record(Trace.CLEAR, 0);
+	}
+
+	@Override
+	public Object[] toArray() {
+		Object[] array = delegate.toArray();
+		recorder.record(Trace.TO_ARRAY, delegate.size());
+		return array;
+	}
+
+	@Override
+	public <T> T[] toArray(T[] a) {
+		T[] array = delegate.toArray(a);
+		recorder.record(Trace.TO_ARRAY, delegate.size());
+		return array;
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends E> c) {
+		boolean changed = delegate.addAll(c);
+		recorder.recordKeys(Trace.ADD_ALL, c, delegate.size());
+		return changed;
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		boolean changed = delegate.removeAll(c);
+		recorder.recordKeys(Trace.REMOVE_ALL, c, delegate.size());
+		return changed;
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		boolean changed = delegate.retainAll(c);
+		recorder.recordKeys(Trace.RETAIN_ALL, c, delegate.size());
+		return changed;
+	}
+
+	@Override
+	public boolean containsAll(Collection<?> c) {
+		boolean found = delegate.containsAll(c);
+		recorder.recordKeys(Trace.CONTAINS_ALL, c, delegate.size());
+		return found;
+	}
+
+	/**
+	 * Iterator recording its next() and remove() calls, hasNext() is not
+	 * recorded
+	 */
+	static class RecordingIterator<E> implements Iterator<E> {
+
+		/** Recorded iterator */
+		private final Iterator<E> iterator;
+
+		/** Iterated collection, for its size */
+		private final Collection<?> collection;
+
+		/** Destination of the calls */
+		private final TraceRecorder recorder;
+
+		/**
+		 * Constructor
+		 *
+		 * @param iterator recorded iterator
+		 * @param collection iterated collection
+		 * @param recorder destination of the calls
+		 */
+		RecordingIterator(Iterator<E> iterator, Collection<?> collection, TraceRecorder recorder) {
+			this.iterator = iterator;
+			this.collection = collection;
+			this.recorder = recorder;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return iterator.hasNext();
+		}
+
+		@Override
+		public E next() {
+			E next = iterator.next();
+			recorder.record(Trace.NEXT, collection.size());
+			return next;
+		}
+
+		@Override
+		public void remove() {
+			iterator.remove();
+			recorder.record(Trace.ITERATOR_REMOVE, collection.size());
+		}
+	}
+}
@@ -0,0 +1,170 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * List forwarding every call to another one and recording it in a trace, see
+ * {@link RecordingCollection}. listIterator() and subList() are the ones of
+ * {@link AbstractList}, so the calls they make are recorded as get, set, add
+ * and remove at an index.
+ *
+ * @author Tommy Ettinger
+ */
+public class RecordingList<E> extends AbstractList<E> {
+
+	/** Recorded list */
+	private final List<E> delegate;
+
+	/** Destination of the calls */
+	private final TraceRecorder recorder;
+
+	/**
+	 * Constructor
+	 *
+	 * @param delegate recorded list
+	 * @param recorder destination of the calls, closed by the caller
+	 */
+	public RecordingList(List<E> delegate, TraceRecorder recorder) {
+		this.delegate = delegate;
+		this.recorder = recorder;
+		if (!delegate.isEmpty()) {
+			recorder.recordKeys(Trace.ADD_ALL, delegate, delegate.size());
+		}
+	}
+
+	@Override
+	public int size() {
+		return delegate.size();
+	}
+
+	@Override
+	public E get(int index) {
+		E element = delegate.get(index);
+		recorder.recordIndex(Trace.GET, index, delegate.size());
+		return element;
+	}
+
+	@Override
+	public E set(int index, E element) {
+		E previous = delegate.set(index, element);
+		recorder.recordIndexKey(Trace.SET, index, element, delegate.size());
+		return previous;
+	}
+
+	@Override
+	public boolean add(E e) {
+		boolean changed = delegate.add(e);
+		recorder.recordKey(Trace.ADD, e, delegate.size());
+		return changed;
+	}
+
+	@Override
+	public void add(int index, E element) {
+		delegate.add(index, element);
+		recorder.recordIndexKey(Trace.ADD_AT, index, element, delegate.size());
+	}
+
+	@Override
+	public E remove(int index) {
+		E removed = delegate.remove(index);
+		recorder.recordIndex(Trace.REMOVE_AT, index, delegate.size());
+		return removed;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		boolean changed = delegate.remove(o);
+		recorder.recordKey(Trace.REMOVE, o, delegate.size());
+		return changed;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		boolean found = delegate.contains(o);
+		recorder.recordKey(Trace.CONTAINS, o, delegate.size());
+		return found;
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		int index = delegate.indexOf(o);
+		recorder.recordKey(Trace.INDEX_OF, o, delegate.size());
+		return index;
+	}
+
+	@Override
+	public void clear() {
+		delegate.clear();
+		recorder.record(Trace.CLEAR, 0);
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		Iterator<E> iterator = delegate.iterator();
+		recorder.record(Trace.ITERATOR, delegate.size());
+		return new RecordingCollection.RecordingIterator<>(iterator, delegate, recorder);
+	}
+
+	@Override
+	public Object[] toArray() {
+		Object[] array = delegate.toArray();
+		recorder.record(Trace.TO_ARRAY, delegate.size());
+		return array;
+	}
+
+	@Override
+	public <T> T[] toArray(T[] a) {
+		T[] array = delegate.toArray(a);
+		recorder.record(Trace.TO_ARRAY, delegate.size());
+		return array;
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends E> c) {
+		boolean changed = delegate.addAll(c);
+		recorder.recordKeys(Trace.ADD_ALL, c, delegate.size());
+		return changed;
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		boolean changed = delegate.removeAll(c);
+		recorder.recordKeys(Trace.REMOVE_ALL, c, delegate.size());
+		return changed;
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		boolean changed = delegate.retainAll(c);
+		recorder.recordKeys(Trace.RETAIN_ALL, c, delegate.size());
+		return changed;
+	}
+
+	@Override
+	public boolean containsAll(Collection<?> c) {
+		boolean found = delegate.containsAll(c);
+		recorder.recordKeys(Trace.CONTAINS_ALL, c, delegate.size());
+		return found;
+	}
+}
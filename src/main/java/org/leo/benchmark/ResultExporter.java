@@ -0,0 +1,287 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write the benchmark results as JSON or CSV, to be read by other tools
+ *
+ * @author Tommy Ettinger
+ */
+public final class ResultExporter {
+
+	/** Header of the CSV file, one column per field of {@link BenchResult} */
+	static final String CSV_HEADER = "task,implementation,timeNs,loops,completedLoops,timeout,callsPerSecond,"
+			+ "iterations,outliers,meanNs,medianNs,stdDevNs,p99Ns,ci99Ns,"
+			+ "allocatedBytes,allocatedBytesPerCall,gcCount,gcTimeMs,gcTimeFraction,samplesNs,"
+			+ "latencyP50Ns,latencyP90Ns,latencyP99Ns,latencyP999Ns,latencyMaxNs,latencyHistogram,nsPerCall";
+
+	private ResultExporter() {
+	}
+
+	/**
+	 * Write the results as CSV, one line per task and implementation
+	 *
+	 * @param results results to write
+	 * @param file destination file
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void writeCsv(List<BenchResult> results, File file) throws IOException {
+		try (PrintWriter out = open(file)) {
+			out.println(CSV_HEADER);
+			for (BenchResult result : results) {
+				Statistics stats = result.getStatistics();
+				out.println(csv(result.getTask()) + "," + csv(result.getImplementation().getName()) + ","
+						+ result.getTime() + "," + result.getLoops() + "," + result.getCompletedLoops() + ","
+						+ result.isTimeout() + "," + result.getThroughput() + "," + stats.getCount() + "," + stats.getOutliers() + ","
+						+ stats.getMean() + "," + stats.getMedian() + "," + stats.getStdDev() + "," + stats.getP99()
+						+ "," + stats.getCi99() + "," + result.getAllocatedBytes() + ","
+						+ result.getAllocatedBytesPerCall() + "," + result.getGcCount() + "," + result.getGcTime() + ","
+						+ result.getGcTimeFraction() + "," + samples(stats) + "," + latency(result.getLatency()) + ","
+						+ result.getTimePerCall());
+			}
+		}
+	}
+
+	/**
+	 * Read the results written by {@link #writeCsv(List, File)}, for instance
+	 * by another JVM
+	 *
+	 * @param file CSV file
+	 * @return the results, in the file order
+	 * @throws IOException if the file cannot be read, or is not a results file
+	 * @throws ClassNotFoundException if an implementation is not on the
+	 *             classpath
+	 */
+	public static List<BenchResult> readCsv(File file) throws IOException, ClassNotFoundException {
+		List<BenchResult> results = new ArrayList<>();
+		try (BufferedReader in = new BufferedReader(
+				new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+			String line = in.readLine();
+			if (!CSV_HEADER.equals(line)) {
+				throw new IOException("Not a results file: " + file);
+			}
+			while ((line = in.readLine()) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				List<String> fields = parseCsv(line);
+				String[] samples = fields.get(19).isEmpty() ? new String[0] : fields.get(19).split(";");
+				long[] times = new long[samples.length];
+				for (int i = 0; i < samples.length; i++) {
+					times[i] = Long.parseLong(samples[i]);
+				}
+				results.add(new BenchResult(fields.get(0), Class.forName(fields.get(1)), Long.parseLong(fields.get(2)),
+						Statistics.restore(times, Integer.parseInt(fields.get(8))), Integer.parseInt(fields.get(3)),
+						Integer.parseInt(fields.get(4)), Boolean.parseBoolean(fields.get(5)),
+						Long.parseLong(fields.get(14)), Double.parseDouble(fields.get(16)),
+						Double.parseDouble(fields.get(17)),
+						fields.get(25).isEmpty() ? null : LatencyHistogram.decode(fields.get(25))));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * @param line a CSV line, fields quoted as {@link #csv(String)} does
+	 * @return the unquoted fields
+	 */
+	private static List<String> parseCsv(String line) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c != '"') {
+					field.append(c);
+				} else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else {
+					quoted = false;
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+
+	/**
+	 * @param latency latency of a task, null if not recorded
+	 * @return the percentiles and the encoded histogram as CSV columns, empty
+	 *         if not recorded
+	 */
+	private static String latency(LatencyHistogram latency) {
+		if (latency == null) {
+			return ",,,,,";
+		}
+		return latency.getValueAtPercentile(50) + "," + latency.getValueAtPercentile(90) + ","
+				+ latency.getValueAtPercentile(99) + "," + latency.getValueAtPercentile(99.9) + ","
+				+ latency.getMax() + "," + latency.encode();
+	}
+
+	/**
+	 * @param latency latency of a task, null if not recorded
+	 * @return the percentiles as a JSON object, null if not recorded
+	 */
+	private static String jsonLatency(LatencyHistogram latency) {
+		if (latency == null) {
+			return "null";
+		}
+		return "{\"p50Ns\": " + latency.getValueAtPercentile(50) + ", \"p90Ns\": "
+				+ latency.getValueAtPercentile(90) + ", \"p99Ns\": " + latency.getValueAtPercentile(99)
+				+ ", \"p999Ns\": " + latency.getValueAtPercentile(99.9) + ", \"maxNs\": " + latency.getMax() + "}";
+	}
+
+	/**
+	 * @param stats statistics of a task
+	 * @return the kept samples separated by semicolons
+	 */
+	private static String samples(Statistics stats) {
+		StringBuilder sb = new StringBuilder();
+		for (long sample : stats.getSamples()) {
+			if (sb.length() > 0) {
+				sb.append(';');
+			}
+			sb.append(sample);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Write the results as a JSON object, with the benchmark settings, the
+	 * task results and the memory results
+	 *
+	 * @param populateSize number of elements of the tested structures
+	 * @param timeout timeout of the tasks in ms
+	 * @param workload description of the keys
+	 * @param results task results
+	 * @param memoryResults memory usage by class, in bytes
+	 * @param elementMemoryResults memory usage by class, in bytes per element
+	 * @param file destination file
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void writeJson(int populateSize, long timeout, String workload, List<BenchResult> results,
+			Map<Class<?>, ? extends Number> memoryResults, Map<Class<?>, ? extends Number> elementMemoryResults,
+			File file) throws IOException {
+		try (PrintWriter out = open(file)) {
+			out.println("{");
+			out.println("  \"populateSize\": " + populateSize + ",");
+			out.println("  \"timeout\": " + timeout + ",");
+			out.println("  \"workload\": " + json(workload) + ",");
+			out.println("  \"results\": [");
+			for (Iterator<BenchResult> it = results.iterator(); it.hasNext();) {
+				BenchResult result = it.next();
+				Statistics stats = result.getStatistics();
+				out.print("    {\"task\": " + json(result.getTask()) + ", \"implementation\": "
+						+ json(result.getImplementation().getName()) + ", \"timeNs\": " + result.getTime()
+						+ ", \"loops\": " + result.getLoops() + ", \"completedLoops\": "
+						+ result.getCompletedLoops() + ", \"timeout\": " + result.isTimeout()
+						+ ", \"callsPerSecond\": " + result.getThroughput() + ", \"nsPerCall\": " + result.getTimePerCall()
+						+ ", \"iterations\": " + stats.getCount() + ", \"outliers\": " + stats.getOutliers()
+						+ ", \"meanNs\": " + stats.getMean() + ", \"medianNs\": " + stats.getMedian()
+						+ ", \"stdDevNs\": " + stats.getStdDev() + ", \"p99Ns\": " + stats.getP99()
+						+ ", \"ci99Ns\": " + stats.getCi99() + ", \"allocatedBytes\": " + result.getAllocatedBytes()
+						+ ", \"allocatedBytesPerCall\": " + result.getAllocatedBytesPerCall() + ", \"gcCount\": "
+						+ result.getGcCount() + ", \"gcTimeMs\": " + result.getGcTime() + ", \"gcTimeFraction\": "
+						+ result.getGcTimeFraction() + ", \"latency\": " + jsonLatency(result.getLatency()) + "}");
+				out.println(it.hasNext() ? "," : "");
+			}
+			out.println("  ],");
+			out.println("  \"memory\": " + json(memoryResults) + ",");
+			out.println("  \"elementMemory\": " + json(elementMemoryResults));
+			out.println("}");
+		}
+	}
+
+	/**
+	 * @param file destination file
+	 * @return an UTF-8 writer on the file
+	 * @throws IOException if the file cannot be opened
+	 */
+	private static PrintWriter open(File file) throws IOException {
+		return new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @param values numbers by class
+	 * @return a JSON object with the class names as keys
+	 */
+	private static String json(Map<Class<?>, ? extends Number> values) {
+		StringBuilder sb = new StringBuilder("{");
+		for (Map.Entry<Class<?>, ? extends Number> entry : values.entrySet()) {
+			if (sb.length() > 1) {
+				sb.append(", ");
+			}
+			sb.append(json(entry.getKey().getName())).append(": ").append(entry.getValue());
+		}
+		return sb.append('}').toString();
+	}
+
+	/**
+	 * @param value a string
+	 * @return the string as a quoted and escaped JSON string
+	 */
+	static String json(String value) {
+		StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			} else if (c < 0x20) {
+				sb.append(String.format("\\u%04x", (int) c));
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.append('"').toString();
+	}
+
+	/**
+	 * @param value a string
+	 * @return the string, quoted if it holds a CSV separator or quote
+	 */
+	static String csv(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+}
@@ -0,0 +1,426 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartPanel;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.LogAxis;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Population size sweep
+ * <p>
+ * Run the tasks of {@link Benchmark} on populate sizes growing geometrically,
+ * plot the time per call against the size on log-log axes, and fit the
+ * empirical exponent k of time ~ size^k for each task and implementation, so
+ * that an operation that is accidentally linear stands out
+ *
+ * @author Tommy Ettinger
+ */
+public class SizeSweep {
+
+	/** Exponent above which an operation is reported as growing with the size */
+	private static final double GROWTH_THRESHOLD = 0.5;
+
+	/** Timeout in ms of each task */
+	private long timeout;
+
+	/** Populate sizes, in increasing order */
+	private int[] sizes;
+
+	/** Number of measurement iterations of each task */
+	private int iterations = 5;
+
+	/** Keys of the structures and of the tasks */
+	private Workload workload = Workload.legacy();
+
+	/**
+	 * Time per call in ns by operation, then by implementation name, then by
+	 * populate size
+	 */
+	private Map<String, Map<String, TreeMap<Integer, Double>>> results;
+
+	/** Skip the Swing display of the results, for machines without screen */
+	private boolean headless = GraphicsEnvironment.isHeadless();
+
+	/**
+	 * Constructor
+	 *
+	 * @param timeout timeout in ms of each task
+	 * @param minSize smallest populate size
+	 * @param maxSize largest populate size
+	 * @param ratio ratio between two consecutive populate sizes, greater than 1
+	 */
+	public SizeSweep(long timeout, int minSize, int maxSize, double ratio) {
+		if (minSize < 1 || maxSize < minSize || ratio <= 1.0) {
+			throw new IllegalArgumentException("Invalid sweep : sizes " + minSize + " to " + maxSize + ", ratio "
+					+ ratio);
+		}
+		this.timeout = timeout;
+		List<Integer> steps = new ArrayList<>();
+		for (double size = minSize; size <= maxSize * 1.000001; size *= ratio) {
+			int rounded = (int) Math.round(size);
+			if (steps.isEmpty() || rounded > steps.get(steps.size() - 1)) {
+				steps.add(rounded);
+			}
+		}
+		sizes = new int[steps.size()];
+		for (int i = 0; i < sizes.length; i++) {
+			sizes[i] = steps.get(i);
+		}
+		results = new LinkedHashMap<>();
+	}
+
+	/**
+	 * How a {@link Benchmark} runs one implementation
+	 */
+	private interface SuiteRunner {
+		/**
+		 * @param benchmark benchmark populated with the current size
+		 * @param clazz tested implementation
+		 */
+		void run(Benchmark benchmark, Class<?> clazz);
+	}
+
+	/**
+	 * Sweep the collection tasks of {@link Benchmark#runIsolated(Class)}
+	 *
+	 * @param collectionClass tested collection
+	 */
+	public void run(Class<?> collectionClass) {
+		sweep(collectionClass, new SuiteRunner() {
+			@Override
+			public void run(Benchmark benchmark, Class<?> clazz) {
+				benchmark.runIsolated(clazz);
+			}
+		});
+	}
+
+	/**
+	 * Sweep the map tasks of {@link Benchmark#runMap(Class)}
+	 *
+	 * @param mapClass tested map
+	 */
+	public void runMap(Class<?> mapClass) {
+		sweep(mapClass, new SuiteRunner() {
+			@Override
+			public void run(Benchmark benchmark, Class<?> clazz) {
+				benchmark.runMap(clazz);
+			}
+		});
+	}
+
+	/**
+	 * Sweep the primitive tasks of {@link Benchmark#runPrimitive(Class)}
+	 *
+	 * @param clazz tested primitive collection or map
+	 */
+	public void runPrimitive(Class<?> clazz) {
+		sweep(clazz, new SuiteRunner() {
+			@Override
+			public void run(Benchmark benchmark, Class<?> clazz) {
+				benchmark.runPrimitive(clazz);
+			}
+		});
+	}
+
+	/**
+	 * Run the suite once per populate size and store the time per call of
+	 * every task that did not time out
+	 *
+	 * @param clazz tested implementation
+	 * @param runner suite to run
+	 */
+	private void sweep(Class<?> clazz, SuiteRunner runner) {
+		for (int size : sizes) {
+			Benchmark benchmark = new Benchmark(timeout, size, workload);
+			benchmark.setHeadless(true);
+			benchmark.setIterations(iterations);
+			runner.run(benchmark, clazz);
+			for (BenchResult result : benchmark.getResults()) {
+				if (result.isTimeout() || result.getCompletedLoops() == 0) {
+					continue;
+				}
+				String operation = operationName(result.getTask());
+				Map<String, TreeMap<Integer, Double>> byImplementation = results.get(operation);
+				if (byImplementation == null) {
+					byImplementation = new LinkedHashMap<>();
+					results.put(operation, byImplementation);
+				}
+				String implementation = result.getImplementation().getName();
+				TreeMap<Integer, Double> bySize = byImplementation.get(implementation);
+				if (bySize == null) {
+					bySize = new TreeMap<>();
+					byImplementation.put(implementation, bySize);
+				}
+				bySize.put(size, result.getTimePerCall());
+			}
+		}
+	}
+
+	/**
+	 * The task names contain their loop counts, which depend on the populate
+	 * size, so they are replaced by "n" to match the same task across sizes
+	 *
+	 * @param taskName task name
+	 * @return operation name
+	 */
+	static String operationName(String taskName) {
+		return taskName.replaceAll("\\d+", "n");
+	}
+
+	/**
+	 * Least squares fit of log(time per call) = k * log(size) + c
+	 *
+	 * @param bySize time per call by populate size
+	 * @return the exponent k, NaN with less than 2 sizes
+	 */
+	static double fitExponent(TreeMap<Integer, Double> bySize) {
+		int n = 0;
+		double sumX = 0, sumY = 0, sumXX = 0, sumXY = 0;
+		for (Map.Entry<Integer, Double> entry : bySize.entrySet()) {
+			if (entry.getValue() <= 0) {
+				continue;
+			}
+			double x = Math.log(entry.getKey());
+			double y = Math.log(entry.getValue());
+			n++;
+			sumX += x;
+			sumY += y;
+			sumXX += x * x;
+			sumXY += x * y;
+		}
+		double denominator = n * sumXX - sumX * sumX;
+		if (n < 2 || denominator == 0) {
+			return Double.NaN;
+		}
+		return (n * sumXY - sumX * sumY) / denominator;
+	}
+
+	/**
+	 * @param exponent fitted exponent
+	 * @return the closest usual complexity
+	 */
+	private static String complexity(double exponent) {
+		if (exponent < 0.25) {
+			return "O(1) or O(log n)";
+		} else if (exponent < 0.75) {
+			return "O(sqrt n)";
+		} else if (exponent < 1.5) {
+			return "O(n)";
+		} else {
+			return "O(n^" + Math.round(exponent) + ")";
+		}
+	}
+
+	/**
+	 * @return the fitted exponent by operation, then by implementation name
+	 */
+	public Map<String, Map<String, Double>> getExponents() {
+		Map<String, Map<String, Double>> exponents = new LinkedHashMap<>();
+		for (Map.Entry<String, Map<String, TreeMap<Integer, Double>>> operation : results.entrySet()) {
+			Map<String, Double> byImplementation = new LinkedHashMap<>();
+			for (Map.Entry<String, TreeMap<Integer, Double>> entry : operation.getValue().entrySet()) {
+				byImplementation.put(entry.getKey(), fitExponent(entry.getValue()));
+			}
+			exponents.put(operation.getKey(), byImplementation);
+		}
+		return exponents;
+	}
+
+	/**
+	 * Print the fitted exponents, operations whose time per call grows with
+	 * the size are flagged
+	 */
+	public void printExponents() {
+		System.out.println("Empirical complexity over sizes " + Arrays.toString(sizes));
+		System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+		for (Map.Entry<String, Map<String, Double>> operation : getExponents().entrySet()) {
+			System.out.println(operation.getKey());
+			for (Map.Entry<String, Double> entry : operation.getValue().entrySet()) {
+				double exponent = entry.getValue();
+				if (Double.isNaN(exponent)) {
+					System.out.println("    " + entry.getKey() + " : not enough sizes to fit");
+				} else {
+					System.out.println("    " + entry.getKey() + " : n^" + String.format("%.2f", exponent) + " ~ "
+							+ complexity(exponent) + (exponent >= GROWTH_THRESHOLD ? "  <-- grows with the size" : ""));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param iterations number of measurement iterations of each task, 5 by
+	 *            default
+	 */
+	public void setIterations(int iterations) {
+		this.iterations = Math.max(1, iterations);
+	}
+
+	/**
+	 * @param workload keys of the structures and of the tasks, the ones of the
+	 *            original benchmark by default
+	 */
+	public void setWorkload(Workload workload) {
+		this.workload = workload;
+	}
+
+	/**
+	 * @param headless true to skip the Swing display of the results, the
+	 *            default is true on machines without screen
+	 */
+	public void setHeadless(boolean headless) {
+		this.headless = headless;
+	}
+
+	/**
+	 * Display one log-log chart per operation, one series per implementation
+	 */
+	public void displayResults() {
+		if (headless) {
+			System.out.println("Headless mode, size sweep results not displayed");
+			return;
+		}
+		Map<String, Map<String, Double>> exponents = getExponents();
+		List<ChartPanel> chartPanels = new ArrayList<>();
+		for (Map.Entry<String, Map<String, TreeMap<Integer, Double>>> operation : results.entrySet()) {
+			XYSeriesCollection dataSet = new XYSeriesCollection();
+			for (Map.Entry<String, TreeMap<Integer, Double>> entry : operation.getValue().entrySet()) {
+				double exponent = exponents.get(operation.getKey()).get(entry.getKey());
+				XYSeries series = new XYSeries(entry.getKey()
+						+ (Double.isNaN(exponent) ? "" : String.format(" (n^%.2f)", exponent)));
+				for (Map.Entry<Integer, Double> point : entry.getValue().entrySet()) {
+					if (point.getValue() > 0) {
+						series.add(point.getKey(), point.getValue());
+					}
+				}
+				dataSet.addSeries(series);
+			}
+			chartPanels.add(createChart(operation.getKey(), dataSet));
+		}
+		JPanel mainPanel = new JPanel(new GridLayout(0, Math.min(chartPanels.size(), 4), 5, 5));
+		for (ChartPanel chart : chartPanels) {
+			mainPanel.add(chart);
+		}
+		JFrame frame = new JFrame("Collection Implementations Size Sweep");
+		frame.getContentPane().add(
+				new JLabel("Collection Implementations Size Sweep. Populate sizes : " + Arrays.toString(sizes)
+						+ ", timeout : " + timeout + "ms"), BorderLayout.NORTH);
+		frame.getContentPane().add(new JScrollPane(mainPanel), BorderLayout.CENTER);
+		frame.setSize(1200, 800);
+		frame.setLocationRelativeTo(null);
+		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		frame.setVisible(true);
+	}
+
+	/**
+	 * Create a line chart with logarithmic axes
+	 *
+	 * @param title title
+	 * @param dataSet one series per implementation
+	 * @return the chartPanel
+	 */
+	private ChartPanel createChart(String title, XYSeriesCollection dataSet) {
+		JFreeChart chart = ChartFactory.createXYLineChart(title, "Populate size", "Time per call (ns)", dataSet,
+				PlotOrientation.VERTICAL, true, true, false);
+		XYPlot plot = chart.getXYPlot();
+		plot.setDomainAxis(new LogAxis("Populate size"));
+		plot.setRangeAxis(new LogAxis("Time per call (ns)"));
+		plot.setBackgroundPaint(new Color(250, 250, 250));
+		plot.setDomainGridlinePaint(new Color(255, 200, 200));
+		plot.setRangeGridlinePaint(Color.BLUE);
+		chart.setBorderVisible(true);
+		ChartPanel chartPanel = new ChartPanel(chart);
+		chartPanel.setPreferredSize(new Dimension(300, 250));
+		return chartPanel;
+	}
+
+	/**
+	 * Main
+	 *
+	 * @param args --headless to skip the Swing display, --min size and --max
+	 *            size to bound the sweep, --ratio r to set the growth of the
+	 *            size between two runs, --iterations count to set the
+	 *            measurement iterations of each task, --keys,
+	 *            --distribution, --length and --seed to choose the
+	 *            {@link Workload}
+	 */
+	public static void main(String[] args) {
+		try {
+			int minSize = 10;
+			int maxSize = 10000000;
+			double ratio = 10;
+			int iterations = 5;
+			boolean headless = false;
+			for (int i = 0; i < args.length; i++) {
+				if ("--headless".equals(args[i])) {
+					headless = true;
+				} else if ("--min".equals(args[i]) && i + 1 < args.length) {
+					minSize = Integer.parseInt(args[++i]);
+				} else if ("--max".equals(args[i]) && i + 1 < args.length) {
+					maxSize = Integer.parseInt(args[++i]);
+				} else if ("--ratio".equals(args[i]) && i + 1 < args.length) {
+					ratio = Double.parseDouble(args[++i]);
+				} else if ("--iterations".equals(args[i]) && i + 1 < args.length) {
+					iterations = Integer.parseInt(args[++i]);
+				} else if (Workload.isArgument(args[i]) && i + 1 < args.length) {
+					// read by Workload.fromArgs
+					i++;
+				} else {
+					System.err.println("Unknown argument " + args[i]);
+				}
+			}
+			SizeSweep sweep = new SizeSweep(15000, minSize, maxSize, ratio);
+			sweep.setIterations(iterations);
+			sweep.setWorkload(Workload.fromArgs(args));
+			if (headless) {
+				sweep.setHeadless(true);
+			}
+			sweep.run(HashSet.class);
+			sweep.run(TreeSet.class);
+			sweep.run(LinkedHashSet.class);
+			sweep.run(com.badlogic.gdx.utils.OrderedSet.class);
+			// lists, remove(Object) and indexOf are expected to be linear
+			// sweep.run(java.util.ArrayList.class);
+			// sweep.run(org.apache.commons.collections4.list.TreeList.class);
+			// sweep.runMap(java.util.HashMap.class);
+			// sweep.runPrimitive(com.badlogic.gdx.utils.IntIntMap.class);
+			sweep.printExponents();
+			sweep.displayResults();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
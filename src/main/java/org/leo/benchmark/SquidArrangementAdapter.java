@@ -0,0 +1,165 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import squidpony.squidmath.Arrangement;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Adapter for squidlib {@link Arrangement}, the insertion-ordered key to index
+ * structure of squidlib, seen as a set of its keys. squidlib OrderedSet and
+ * UnorderedSet are {@link java.util.Set}s, so they use
+ * {@link JavaCollectionAdapter}.
+ *
+ * @author Tommy Ettinger
+ */
+public class SquidArrangementAdapter<T> implements CollectionAdapter<T> {
+
+	/** Adapted arrangement */
+	private Arrangement<T> arrangement;
+
+	/**
+	 * Constructor
+	 *
+	 * @param arrangement adapted arrangement
+	 */
+	public SquidArrangementAdapter(Arrangement<T> arrangement) {
+		this.arrangement = arrangement;
+	}
+
+	@Override
+	public Arrangement<T> getTarget() {
+		return arrangement;
+	}
+
+	@Override
+	public Class<?> getImplementationClass() {
+		return arrangement.getClass();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void renew() throws ReflectiveOperationException {
+		Constructor<?> constructor = arrangement.getClass().getDeclaredConstructor((Class<?>[]) null);
+		constructor.setAccessible(true);
+		arrangement = (Arrangement<T>) constructor.newInstance();
+	}
+
+	@Override
+	public boolean add(T item) {
+		int oldSize = arrangement.size();
+		arrangement.add(item);
+		return oldSize != arrangement.size();
+	}
+
+	@Override
+	public boolean remove(Object item) {
+		int oldSize = arrangement.size();
+		arrangement.removeInt(item);
+		return oldSize != arrangement.size();
+	}
+
+	@Override
+	public boolean contains(Object item) {
+		return arrangement.containsKey(item);
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return arrangement.iterator();
+	}
+
+	@Override
+	public void clear() {
+		arrangement.clear();
+	}
+
+	@Override
+	public int size() {
+		return arrangement.size();
+	}
+
+	@Override
+	public Object[] toArray() {
+		return arrangement.keySet().toArray();
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends T> items) {
+		int oldSize = arrangement.size();
+		arrangement.putAll(items);
+		return oldSize != arrangement.size();
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> items) {
+		int oldSize = arrangement.size();
+		for (Object item : items) {
+			arrangement.removeInt(item);
+		}
+		return oldSize != arrangement.size();
+	}
+
+	@Override
+	public boolean containsAll(Collection<?> items) {
+		for (Object item : items) {
+			if (!arrangement.containsKey(item)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> items) {
+		return arrangement.retainAll(items);
+	}
+
+	@Override
+	public boolean removeIf(Predicate<? super T> filter) {
+		List<T> removed = new ArrayList<>();
+		for (T item : arrangement) {
+			if (filter.test(item)) {
+				removed.add(item);
+			}
+		}
+		for (T item : removed) {
+			arrangement.removeInt(item);
+		}
+		return !removed.isEmpty();
+	}
+
+	@Override
+	public boolean isSortable() {
+		return true;
+	}
+
+	@Override
+	public boolean sort(Comparator<? super T> comparator) {
+		arrangement.sort(comparator);
+		return true;
+	}
+}
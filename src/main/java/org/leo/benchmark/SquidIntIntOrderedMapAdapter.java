@@ -0,0 +1,101 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import squidpony.squidmath.IntIntOrderedMap;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Adapter for squidlib {@link IntIntOrderedMap}
+ *
+ * @author Tommy Ettinger
+ */
+public class SquidIntIntOrderedMapAdapter implements IntMapAdapter {
+
+	/** Adapted structure */
+	private IntIntOrderedMap map;
+
+	/**
+	 * Constructor
+	 *
+	 * @param map adapted structure
+	 */
+	public SquidIntIntOrderedMapAdapter(IntIntOrderedMap map) {
+		this.map = map;
+	}
+
+	@Override
+	public IntIntOrderedMap getTarget() {
+		return map;
+	}
+
+	@Override
+	public Class<?> getImplementationClass() {
+		return map.getClass();
+	}
+
+	@Override
+	public void renew() throws ReflectiveOperationException {
+		Constructor<?> constructor = map.getClass().getDeclaredConstructor((Class<?>[]) null);
+		constructor.setAccessible(true);
+		map = (IntIntOrderedMap) constructor.newInstance();
+	}
+
+	@Override
+	public void clear() {
+		map.clear();
+	}
+
+	@Override
+	public int size() {
+		return map.size();
+	}
+
+	@Override
+	public void put(int key, int value) {
+		map.put(key, value);
+	}
+
+	@Override
+	public int get(int key, int defaultValue) {
+		return map.getOrDefault(key, defaultValue);
+	}
+
+	@Override
+	public boolean containsKey(int key) {
+		return map.containsKey(key);
+	}
+
+	@Override
+	public void remove(int key) {
+		map.remove(key);
+	}
+
+	@Override
+	public long iterate() {
+		// walk in insertion order with the index accessors, the entry
+		// iterators of this map box the keys and values
+		long sum = 0;
+		for (int i = 0, n = map.size(); i < n; i++) {
+			sum += map.keyAt(i) + map.getAt(i);
+		}
+		return sum;
+	}
+}
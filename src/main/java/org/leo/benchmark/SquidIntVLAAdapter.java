@@ -0,0 +1,98 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import squidpony.squidmath.IntVLA;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Adapter for squidlib {@link IntVLA}
+ *
+ * @author Tommy Ettinger
+ */
+public class SquidIntVLAAdapter implements IntCollectionAdapter {
+
+	/** Adapted structure */
+	private IntVLA vla;
+
+	/**
+	 * Constructor
+	 *
+	 * @param vla adapted structure
+	 */
+	public SquidIntVLAAdapter(IntVLA vla) {
+		this.vla = vla;
+	}
+
+	@Override
+	public IntVLA getTarget() {
+		return vla;
+	}
+
+	@Override
+	public Class<?> getImplementationClass() {
+		return vla.getClass();
+	}
+
+	@Override
+	public void renew() throws ReflectiveOperationException {
+		Constructor<?> constructor = vla.getClass().getDeclaredConstructor((Class<?>[]) null);
+		constructor.setAccessible(true);
+		vla = (IntVLA) constructor.newInstance();
+	}
+
+	@Override
+	public void clear() {
+		vla.clear();
+	}
+
+	@Override
+	public int size() {
+		return vla.size;
+	}
+
+	@Override
+	public boolean add(int item) {
+		vla.add(item);
+		return true;
+	}
+
+	@Override
+	public boolean remove(int item) {
+		int oldSize = vla.size;
+		vla.removeValue(item);
+		return oldSize != vla.size;
+	}
+
+	@Override
+	public boolean contains(int item) {
+		return vla.contains(item);
+	}
+
+	@Override
+	public long iterate() {
+		long sum = 0;
+		int[] items = vla.items;
+		for (int i = 0, n = vla.size; i < n; i++) {
+			sum += items[i];
+		}
+		return sum;
+	}
+}
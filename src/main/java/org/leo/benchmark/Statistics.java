@@ -0,0 +1,210 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Summary statistics of the times measured by the iterations of a task
+ *
+ * @author Tommy Ettinger
+ */
+public class Statistics {
+
+	/**
+	 * Two-sided 99% quantiles of the Student t distribution, indexed by degrees
+	 * of freedom - 1
+	 */
+	private static final double[] T_99 = { 63.657, 9.925, 5.841, 4.604, 4.032, 3.707, 3.499, 3.355, 3.250, 3.169,
+			3.106, 3.055, 3.012, 2.977, 2.947, 2.921, 2.898, 2.878, 2.861, 2.845, 2.831, 2.819, 2.807, 2.797, 2.787,
+			2.779, 2.771, 2.763, 2.756, 2.750 };
+
+	/** Kept samples, sorted */
+	private final long[] samples;
+
+	/** Number of samples rejected as outliers */
+	private final int outliers;
+
+	private final double mean;
+
+	private final double stdDev;
+
+	/**
+	 * Constructor
+	 *
+	 * @param times measured times, at least one
+	 * @param trimOutliers reject the times outside of Tukey's fences (1.5
+	 *            interquartile range away from the quartiles)
+	 */
+	public Statistics(long[] times, boolean trimOutliers) {
+		this(trimOutliers ? trim(sorted(times)) : sorted(times), times.length);
+	}
+
+	/**
+	 * @param samples kept samples, sorted
+	 * @param total number of samples before the outliers were rejected
+	 */
+	private Statistics(long[] samples, int total) {
+		this.samples = samples;
+		outliers = total - samples.length;
+		double sum = 0;
+		for (long sample : samples) {
+			sum += sample;
+		}
+		mean = sum / samples.length;
+		double squares = 0;
+		for (long sample : samples) {
+			squares += (sample - mean) * (sample - mean);
+		}
+		stdDev = samples.length > 1 ? Math.sqrt(squares / (samples.length - 1)) : 0;
+	}
+
+	/**
+	 * Rebuild the statistics computed by another JVM
+	 *
+	 * @param samples kept samples, see {@link #getSamples()}
+	 * @param outliers number of samples that were rejected
+	 * @return the same statistics, without trimming the samples again
+	 */
+	static Statistics restore(long[] samples, int outliers) {
+		return new Statistics(sorted(samples), samples.length + outliers);
+	}
+
+	/**
+	 * @param times measured times
+	 * @return a sorted copy
+	 */
+	private static long[] sorted(long[] times) {
+		long[] sorted = times.clone();
+		Arrays.sort(sorted);
+		return sorted;
+	}
+
+	/**
+	 * @param sorted sorted times, at least 4 to reject anything
+	 * @return the times within Tukey's fences
+	 */
+	private static long[] trim(long[] sorted) {
+		if (sorted.length < 4) {
+			return sorted;
+		}
+		double q1 = quantile(sorted, 0.25);
+		double q3 = quantile(sorted, 0.75);
+		double low = q1 - 1.5 * (q3 - q1);
+		double high = q3 + 1.5 * (q3 - q1);
+		int from = 0;
+		int to = sorted.length;
+		while (from < to && sorted[from] < low) {
+			from++;
+		}
+		while (to > from && sorted[to - 1] > high) {
+			to--;
+		}
+		return Arrays.copyOfRange(sorted, from, to);
+	}
+
+	/**
+	 * @param sorted sorted values
+	 * @param q quantile between 0 and 1
+	 * @return the quantile, linearly interpolated between the closest values
+	 */
+	private static double quantile(long[] sorted, double q) {
+		double pos = q * (sorted.length - 1);
+		int index = (int) pos;
+		if (index + 1 >= sorted.length) {
+			return sorted[sorted.length - 1];
+		}
+		return sorted[index] + (pos - index) * (sorted[index + 1] - sorted[index]);
+	}
+
+	/**
+	 * @return number of kept samples
+	 */
+	public int getCount() {
+		return samples.length;
+	}
+
+	/**
+	 * @return kept samples, sorted
+	 */
+	public long[] getSamples() {
+		return samples.clone();
+	}
+
+	/**
+	 * @return number of samples rejected as outliers
+	 */
+	public int getOutliers() {
+		return outliers;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+
+	public double getMedian() {
+		return quantile(samples, 0.5);
+	}
+
+	/**
+	 * @return sample standard deviation, 0 with a single sample
+	 */
+	public double getStdDev() {
+		return stdDev;
+	}
+
+	/**
+	 * @return 99th percentile, nearest rank
+	 */
+	public long getP99() {
+		return samples[(int) Math.ceil(0.99 * samples.length) - 1];
+	}
+
+	public long getMin() {
+		return samples[0];
+	}
+
+	public long getMax() {
+		return samples[samples.length - 1];
+	}
+
+	/**
+	 * @return half-width of the 99% confidence interval of the mean, 0 with a
+	 *         single sample
+	 */
+	public double getCi99() {
+		int df = samples.length - 1;
+		if (df < 1) {
+			return 0;
+		}
+		double t;
+		if (df <= T_99.length) {
+			t = T_99[df - 1];
+		} else if (df <= 40) {
+			t = 2.750;
+		} else if (df <= 60) {
+			t = 2.704;
+		} else if (df <= 120) {
+			t = 2.660;
+		} else {
+			t = 2.617;
+		}
+		return t * stdDev / Math.sqrt(samples.length);
+	}
+}
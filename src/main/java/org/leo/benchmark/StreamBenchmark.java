@@ -0,0 +1,556 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartPanel;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.LogAxis;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Stream benchmark
+ * <p>
+ * Measure filter/map/count, collect to a list and reduce on sequential and
+ * parallel streams of every implementation, for several populate sizes and
+ * ForkJoinPool parallelism levels. Structures that are not a
+ * {@link Collection} are streamed from their Iterable spliterator.
+ * <p>
+ * Whether a parallel stream helps depends on the spliterator, so each one is
+ * also split as a parallel stream would, and the implementations whose
+ * chunks are unbalanced are reported.
+ *
+ * @author Tommy Ettinger
+ */
+public class StreamBenchmark {
+
+	/** Measured operations */
+	private static final String[] OPERATIONS = { "filter/map/count", "collect to list", "reduce" };
+
+	/** Elements streamed per measure, the small sizes are streamed several times */
+	private static final int ELEMENTS_PER_MEASURE = 1000000;
+
+	/** Keeps about half the elements */
+	private static final Predicate<Object> EVEN_HASH = new Predicate<Object>() {
+		@Override
+		public boolean test(Object element) {
+			return (element.hashCode() & 1) == 0;
+		}
+	};
+
+	private static final Function<Object, Integer> HASH = new Function<Object, Integer>() {
+		@Override
+		public Integer apply(Object element) {
+			return element.hashCode();
+		}
+	};
+
+	private static final ToIntFunction<Object> INT_HASH = new ToIntFunction<Object>() {
+		@Override
+		public int applyAsInt(Object element) {
+			return element.hashCode();
+		}
+	};
+
+	private static final IntBinaryOperator SUM = new IntBinaryOperator() {
+		@Override
+		public int applyAsInt(int left, int right) {
+			return left + right;
+		}
+	};
+
+	/** Populate sizes, in increasing order */
+	private int[] sizes;
+
+	/** Parallelism levels of the ForkJoinPools running the parallel streams */
+	private int[] parallelisms;
+
+	/** Number of measurement iterations, the median is kept */
+	private int iterations = 5;
+
+	/** Keys of the structures */
+	private Workload workload = Workload.legacy();
+
+	/** Consumes the results so that no stream is optimized away */
+	private long sink;
+
+	/**
+	 * Time per element in ns by operation, then by implementation and mode,
+	 * then by size
+	 */
+	private Map<String, Map<String, TreeMap<Integer, Double>>> results;
+
+	/** Why the spliterator of an implementation splits poorly */
+	private Map<String, String> splitWarnings;
+
+	/** Skip the Swing display of the results, for machines without screen */
+	private boolean headless = GraphicsEnvironment.isHeadless();
+
+	/**
+	 * Constructor
+	 *
+	 * @param sizes populate sizes
+	 * @param parallelisms parallelism levels of the parallel streams
+	 */
+	public StreamBenchmark(int[] sizes, int[] parallelisms) {
+		this.sizes = sizes.clone();
+		Arrays.sort(this.sizes);
+		this.parallelisms = parallelisms.clone();
+		Arrays.sort(this.parallelisms);
+		results = new LinkedHashMap<>();
+		splitWarnings = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Run every operation on streams of the given structure, sequential and
+	 * parallel, for every size
+	 *
+	 * @param clazz a class supported by {@link CollectionAdapters}
+	 */
+	@SuppressWarnings("unchecked")
+	public void run(Class<?> clazz) {
+		String implementation = clazz.getName();
+		List<Object> keys = workload.keys(sizes[sizes.length - 1]);
+		try {
+			for (int size : sizes) {
+				CollectionAdapter<Object> adapter = CollectionAdapters.create(clazz);
+				adapter.addAll(keys.subList(0, size));
+				if (!(adapter.getTarget() instanceof Iterable)) {
+					System.out.println(implementation + " cannot be streamed");
+					return;
+				}
+				Iterable<Object> source = (Iterable<Object>) adapter.getTarget();
+				System.out.println("Streams of " + implementation + " populated with " + size + " elt(s) "
+						+ characteristics(source.spliterator()));
+				System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+				String warning = splitWarning(source, size);
+				if (warning != null) {
+					System.out.println("Warning: " + warning);
+					splitWarnings.put(implementation, warning + " (" + size + " elements)");
+				}
+				for (int op = 0; op < OPERATIONS.length; op++) {
+					double sequential = measure(source, size, op, null);
+					record(OPERATIONS[op], implementation + " sequential", size, sequential);
+					StringBuilder line = new StringBuilder(OPERATIONS[op] + " ... sequential "
+							+ String.format("%.2f", sequential) + "ns/elt");
+					for (int parallelism : parallelisms) {
+						ForkJoinPool pool = new ForkJoinPool(parallelism);
+						try {
+							double parallel = measure(source, size, op, pool);
+							record(OPERATIONS[op], implementation + " parallel " + parallelism, size, parallel);
+							line.append(", parallel ").append(parallelism).append(' ')
+									.append(String.format("%.2f", parallel)).append("ns/elt (x")
+									.append(String.format("%.2f", sequential / parallel)).append(')');
+						} finally {
+							pool.shutdown();
+						}
+					}
+					System.out.println(line);
+				}
+				System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+				adapter.clear();
+				GcMeter.settle(2000);
+			}
+		} catch (Exception e) {
+			System.err.println("Failed running stream benchmark on class " + implementation);
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Time an operation, warmed up then measured for every iteration
+	 *
+	 * @param source streamed structure
+	 * @param size its size
+	 * @param operation index of the operation
+	 * @param pool pool running the parallel stream, null for a sequential
+	 *            stream
+	 * @return median time per element in ns
+	 * @throws Exception if the stream fails
+	 */
+	private double measure(final Iterable<Object> source, int size, final int operation, ForkJoinPool pool)
+			throws Exception {
+		final int repeats = Math.max(1, ELEMENTS_PER_MEASURE / Math.max(1, size));
+		final boolean parallel = pool != null;
+		Callable<Long> task = new Callable<Long>() {
+			@Override
+			public Long call() {
+				long result = 0;
+				for (int r = 0; r < repeats; r++) {
+					result += apply(stream(source, parallel), operation);
+				}
+				return result;
+			}
+		};
+		long[] times = new long[iterations];
+		// the first iteration only warms up
+		for (int it = -1; it < iterations; it++) {
+			long start = System.nanoTime();
+			// a parallel stream started from a task of a pool runs in that pool
+			sink += parallel ? pool.submit(task).get() : task.call();
+			long time = System.nanoTime() - start;
+			if (it >= 0) {
+				times[it] = time;
+			}
+		}
+		return new Statistics(times, false).getMedian() / ((double) repeats * size);
+	}
+
+	/**
+	 * @param source streamed structure
+	 * @param parallel true for a parallel stream
+	 * @return a stream of its elements
+	 */
+	private static Stream<Object> stream(Iterable<Object> source, boolean parallel) {
+		if (source instanceof Collection) {
+			Collection<Object> collection = (Collection<Object>) source;
+			return parallel ? collection.parallelStream() : collection.stream();
+		}
+		return StreamSupport.stream(source.spliterator(), parallel);
+	}
+
+	/**
+	 * @param stream a new stream
+	 * @param operation index of the operation
+	 * @return its result
+	 */
+	private static long apply(Stream<Object> stream, int operation) {
+		switch (operation) {
+		case 0:
+			return stream.filter(EVEN_HASH).map(HASH).count();
+		case 1:
+			return stream.filter(EVEN_HASH).collect(Collectors.toList()).size();
+		default:
+			return stream.mapToInt(INT_HASH).reduce(0, SUM);
+		}
+	}
+
+	/**
+	 * Split the spliterator of the structure in rounds, every chunk being
+	 * split in two at each round, until there are about 4 chunks per thread
+	 * of the largest parallelism level, as a parallel stream aims at, and
+	 * check how balanced the chunks are. Iterator based spliterators (the
+	 * default of {@link Iterable} and of sequential lists) only split off
+	 * small batches, so most elements stay in one chunk.
+	 *
+	 * @param source a populated structure
+	 * @param size its size
+	 * @return why the chunks are unbalanced, null if they are fine
+	 */
+	String splitWarning(Iterable<Object> source, int size) {
+		int rounds = 32 - Integer.numberOfLeadingZeros(4 * parallelisms[parallelisms.length - 1] - 1);
+		int target = 1 << rounds;
+		if (size < 2 * target) {
+			return null;
+		}
+		List<Spliterator<Object>> chunks = new ArrayList<>();
+		chunks.add(source.spliterator());
+		for (int round = 0; round < rounds; round++) {
+			List<Spliterator<Object>> next = new ArrayList<>();
+			for (Spliterator<Object> chunk : chunks) {
+				Spliterator<Object> prefix = chunk.trySplit();
+				if (prefix != null) {
+					next.add(prefix);
+				}
+				next.add(chunk);
+			}
+			chunks = next;
+		}
+		final long[] count = new long[1];
+		Consumer<Object> counter = new Consumer<Object>() {
+			@Override
+			public void accept(Object element) {
+				count[0]++;
+			}
+		};
+		long largest = 0;
+		for (Spliterator<Object> chunk : chunks) {
+			count[0] = 0;
+			chunk.forEachRemaining(counter);
+			largest = Math.max(largest, count[0]);
+		}
+		if (chunks.size() == 1) {
+			return "the spliterator does not split";
+		}
+		// a chunk twice as large as a balanced one keeps one thread busy alone
+		if (largest > 2 * size / target) {
+			return "after " + rounds + " rounds of splitting, the largest of " + chunks.size() + " chunks holds "
+					+ Math.round(100.0 * largest / size) + "% of the elements instead of "
+					+ Math.round(100.0 / target) + "%";
+		}
+		return null;
+	}
+
+	/**
+	 * @param spliterator a spliterator
+	 * @return its size related characteristics
+	 */
+	private static String characteristics(Spliterator<?> spliterator) {
+		StringBuilder sb = new StringBuilder("(");
+		if (spliterator.hasCharacteristics(Spliterator.SIZED)) {
+			sb.append("SIZED");
+		}
+		if (spliterator.hasCharacteristics(Spliterator.SUBSIZED)) {
+			sb.append(sb.length() > 1 ? ", " : "").append("SUBSIZED");
+		}
+		if (sb.length() == 1) {
+			sb.append("size unknown");
+		}
+		return sb.append(')').toString();
+	}
+
+	/**
+	 * Store a time per element
+	 */
+	private void record(String operation, String series, int size, double nsPerElement) {
+		Map<String, TreeMap<Integer, Double>> byImplementation = results.get(operation);
+		if (byImplementation == null) {
+			byImplementation = new LinkedHashMap<>();
+			results.put(operation, byImplementation);
+		}
+		TreeMap<Integer, Double> bySize = byImplementation.get(series);
+		if (bySize == null) {
+			bySize = new TreeMap<>();
+			byImplementation.put(series, bySize);
+		}
+		bySize.put(size, nsPerElement);
+	}
+
+	/**
+	 * Print the speedup of the parallel streams at the largest size, and the
+	 * implementations whose spliterator splits poorly
+	 */
+	public void printSummary() {
+		int size = sizes[sizes.length - 1];
+		int parallelism = parallelisms[parallelisms.length - 1];
+		for (Map.Entry<String, Map<String, TreeMap<Integer, Double>>> operation : results.entrySet()) {
+			System.out.println("Parallel " + operation.getKey() + " speedup with " + parallelism + " thread(s) on "
+					+ size + " elements");
+			System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+			for (Map.Entry<String, TreeMap<Integer, Double>> series : operation.getValue().entrySet()) {
+				if (!series.getKey().endsWith(" sequential")) {
+					continue;
+				}
+				String implementation = series.getKey().substring(0, series.getKey().length() - 11);
+				Double sequential = series.getValue().get(size);
+				TreeMap<Integer, Double> parallel = operation.getValue().get(implementation + " parallel "
+						+ parallelism);
+				if (sequential == null || parallel == null || parallel.get(size) == null) {
+					continue;
+				}
+				System.out.println("    " + implementation + " : x" + String.format("%.2f", sequential
+						/ parallel.get(size)) + (splitWarnings.containsKey(implementation) ? ", splits poorly" : ""));
+			}
+		}
+		if (!splitWarnings.isEmpty()) {
+			System.out.println("Spliterators splitting poorly, parallel streams cannot use every thread");
+			System.out.println("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
+			for (Map.Entry<String, String> warning : splitWarnings.entrySet()) {
+				System.out.println("    " + warning.getKey() + " : " + warning.getValue());
+			}
+		}
+	}
+
+	/**
+	 * @param iterations number of measurement iterations, the median is kept,
+	 *            5 by default
+	 */
+	public void setIterations(int iterations) {
+		this.iterations = Math.max(1, iterations);
+	}
+
+	/**
+	 * @param workload keys of the structures
+	 */
+	public void setWorkload(Workload workload) {
+		this.workload = workload;
+	}
+
+	/**
+	 * @param headless true to skip the Swing display of the results, the
+	 *            default is true on machines without screen
+	 */
+	public void setHeadless(boolean headless) {
+		this.headless = headless;
+	}
+
+	/**
+	 * Display one chart per operation, with the time per element against the
+	 * populate size for each implementation and mode
+	 */
+	public void displayResults() {
+		if (headless) {
+			System.out.println("Headless mode, stream results not displayed");
+			return;
+		}
+		List<ChartPanel> chartPanels = new ArrayList<>();
+		for (Map.Entry<String, Map<String, TreeMap<Integer, Double>>> operation : results.entrySet()) {
+			XYSeriesCollection dataSet = new XYSeriesCollection();
+			for (Map.Entry<String, TreeMap<Integer, Double>> entry : operation.getValue().entrySet()) {
+				XYSeries series = new XYSeries(entry.getKey());
+				for (Map.Entry<Integer, Double> point : entry.getValue().entrySet()) {
+					if (point.getValue() > 0) {
+						series.add(point.getKey(), point.getValue());
+					}
+				}
+				dataSet.addSeries(series);
+			}
+			chartPanels.add(createChart(operation.getKey(), dataSet));
+		}
+		JPanel mainPanel = new JPanel(new GridLayout(0, Math.max(1, chartPanels.size()), 5, 5));
+		for (ChartPanel chart : chartPanels) {
+			mainPanel.add(chart);
+		}
+		JFrame frame = new JFrame("Collection Implementations Streams");
+		frame.getContentPane().add(
+				new JLabel("Collection Implementations Streams. Populate sizes : " + Arrays.toString(sizes)
+						+ ", parallelism : " + Arrays.toString(parallelisms)), BorderLayout.NORTH);
+		frame.getContentPane().add(new JScrollPane(mainPanel), BorderLayout.CENTER);
+		frame.setSize(1200, 600);
+		frame.setLocationRelativeTo(null);
+		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		frame.setVisible(true);
+	}
+
+	/**
+	 * Create a line chart with log-log axes
+	 *
+	 * @param title title
+	 * @param dataSet one series per implementation and mode
+	 * @return the chartPanel
+	 */
+	private ChartPanel createChart(String title, XYSeriesCollection dataSet) {
+		JFreeChart chart = ChartFactory.createXYLineChart(title, "Populate size", "Time per element (ns)", dataSet,
+				PlotOrientation.VERTICAL, true, true, false);
+		XYPlot plot = chart.getXYPlot();
+		plot.setDomainAxis(new LogAxis("Populate size"));
+		plot.setRangeAxis(new LogAxis("Time per element (ns)"));
+		plot.setBackgroundPaint(new Color(250, 250, 250));
+		plot.setDomainGridlinePaint(new Color(255, 200, 200));
+		plot.setRangeGridlinePaint(Color.BLUE);
+		chart.setBorderVisible(true);
+		return new ChartPanel(chart);
+	}
+
+	/**
+	 * @param list comma separated ints
+	 * @return the ints
+	 */
+	private static int[] parseInts(String list) {
+		String[] parts = list.split(",");
+		int[] values = new int[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			values[i] = Integer.parseInt(parts[i].trim());
+		}
+		return values;
+	}
+
+	/**
+	 * Main
+	 *
+	 * @param args --headless to skip the Swing display, --sizes and
+	 *            --parallelism comma separated lists, --iterations count,
+	 *            --class name (repeatable) to replace the default structures,
+	 *            and the {@link Workload} arguments
+	 */
+	public static void main(String[] args) {
+		try {
+			int[] sizes = { 1000, 10000, 100000, 1000000 };
+			// powers of two up to the number of cores, which is always tested
+			int cores = Runtime.getRuntime().availableProcessors();
+			List<Integer> levels = new ArrayList<>();
+			for (int p = 1; p < cores; p *= 2) {
+				levels.add(p);
+			}
+			levels.add(cores);
+			int[] parallelisms = new int[levels.size()];
+			for (int i = 0; i < parallelisms.length; i++) {
+				parallelisms[i] = levels.get(i);
+			}
+			int iterations = 5;
+			boolean headless = false;
+			List<Class<?>> classes = new ArrayList<>();
+			for (int i = 0; i < args.length; i++) {
+				if ("--headless".equals(args[i])) {
+					headless = true;
+				} else if ("--sizes".equals(args[i]) && i + 1 < args.length) {
+					sizes = parseInts(args[++i]);
+				} else if ("--parallelism".equals(args[i]) && i + 1 < args.length) {
+					parallelisms = parseInts(args[++i]);
+				} else if ("--iterations".equals(args[i]) && i + 1 < args.length) {
+					iterations = Integer.parseInt(args[++i]);
+				} else if ("--class".equals(args[i]) && i + 1 < args.length) {
+					classes.add(Class.forName(args[++i]));
+				} else if (Workload.isArgument(args[i]) && i + 1 < args.length) {
+					// read by Workload.fromArgs
+					i++;
+				} else {
+					System.err.println("Unknown argument " + args[i]);
+				}
+			}
+			if (classes.isEmpty()) {
+				// the structures of Benchmark.main, then lists with known
+				// spliterator issues
+				classes.addAll(Benchmark.defaultClasses());
+				classes.add(ArrayList.class);
+				classes.add(LinkedList.class);
+				classes.add(org.apache.commons.collections4.list.TreeList.class);
+				classes.add(org.leo.list.CombinedList.class);
+			}
+			StreamBenchmark benchmark = new StreamBenchmark(sizes, parallelisms);
+			benchmark.setIterations(iterations);
+			benchmark.setWorkload(Workload.fromArgs(args));
+			if (headless) {
+				benchmark.setHeadless(true);
+			}
+			for (Class<?> clazz : classes) {
+				benchmark.run(clazz);
+			}
+			benchmark.printSummary();
+			benchmark.displayResults();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
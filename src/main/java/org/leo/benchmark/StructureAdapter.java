@@ -0,0 +1,49 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+/**
+ * Operations the benchmark needs on any tested structure, whatever its kind
+ *
+ * @author Tommy Ettinger
+ */
+public interface StructureAdapter {
+
+	/**
+	 * @return the adapted structure
+	 */
+	Object getTarget();
+
+	/**
+	 * @return class of the adapted structure, used as key of the results
+	 */
+	Class<?> getImplementationClass();
+
+	/**
+	 * Replace the adapted structure with a new empty instance of the same
+	 * class
+	 *
+	 * @throws ReflectiveOperationException if the class cannot be instantiated
+	 */
+	void renew() throws ReflectiveOperationException;
+
+	void clear();
+
+	int size();
+}
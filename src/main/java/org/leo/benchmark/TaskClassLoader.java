@@ -0,0 +1,123 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Class loader defining its own copy of the benchmark classes from the same
+ * bytecode, the tested structures and the libraries come from the parent class
+ * loader. A new loader per implementation and task gives the task, the
+ * adapter and the timed loop classes of their own, whose call sites only ever
+ * see that task and that implementation whatever ran before, so they stay
+ * monomorphic and inlined.
+ *
+ * @author Tommy Ettinger
+ */
+final class TaskClassLoader extends ClassLoader {
+
+	private static final String PACKAGE = Benchmark.class.getPackage().getName() + ".";
+
+	/**
+	 * Classes shared with the parent class loader: the results handed back to
+	 * the original benchmark, the calibration done once per JVM, and the
+	 * meters, whose GC listener would keep every copy loaded
+	 */
+	private static final Set<String> SHARED = new HashSet<>(Arrays.asList(BenchResult.class.getName(),
+			Statistics.class.getName(), LatencyHistogram.class.getName(), Calibration.class.getName(),
+			GcMeter.class.getName(), AllocationMeter.class.getName()));
+
+	private TaskClassLoader() {
+		super(TaskClassLoader.class.getClassLoader());
+	}
+
+	/**
+	 * Run a single task of a benchmark in classes of its own
+	 *
+	 * @param settings command line settings of the benchmark, see
+	 *            {@link Benchmark#parseArgument(String[], int)}
+	 * @param collectionClass a class supported by {@link CollectionAdapters}
+	 * @param task name of the task
+	 * @return results of the task
+	 * @throws ReflectiveOperationException if the copy cannot be run
+	 */
+	@SuppressWarnings("unchecked")
+	static List<BenchResult> run(String[] settings, Class<?> collectionClass, String task)
+			throws ReflectiveOperationException {
+		Method runTask = new TaskClassLoader().loadClass(Benchmark.class.getName()).getDeclaredMethod("runTask",
+				String[].class, Class.class, String.class);
+		runTask.setAccessible(true);
+		try {
+			return (List<BenchResult>) runTask.invoke(null, settings, collectionClass, task);
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+		if (!name.startsWith(PACKAGE) || SHARED.contains(name)) {
+			return super.loadClass(name, resolve);
+		}
+		synchronized (getClassLoadingLock(name)) {
+			Class<?> clazz = findLoadedClass(name);
+			if (clazz == null) {
+				byte[] bytes = bytecode(name);
+				clazz = defineClass(name, bytes, 0, bytes.length, Benchmark.class.getProtectionDomain());
+			}
+			if (resolve) {
+				resolveClass(clazz);
+			}
+			return clazz;
+		}
+	}
+
+	/**
+	 * @param name class name
+	 * @return the bytecode of the class, as the parent class loader finds it
+	 * @throws ClassNotFoundException if the class file cannot be read
+	 */
+	private byte[] bytecode(String name) throws ClassNotFoundException {
+		try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+			if (in == null) {
+				throw new ClassNotFoundException(name);
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		} catch (IOException e) {
+			throw new ClassNotFoundException(name, e);
+		}
+	}
+}
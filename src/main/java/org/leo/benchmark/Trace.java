@@ -0,0 +1,270 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Sequence of collection calls recorded by {@link RecordingCollection} or
+ * {@link RecordingList}, replayed by {@link TraceReplay}.
+ * <p>
+ * The file starts with {@link #MAGIC} and {@link #VERSION}, then holds one
+ * record per call: the operation byte, its arguments (key ids, indexes, or a
+ * count followed by key ids for the bulk operations) and the size of the
+ * collection after the call, all of them as unsigned varints. It ends with
+ * {@link #END}, the number of distinct keys and the number of records. Keys
+ * are numbered in order of appearance, so a trace holds no user data and is
+ * replayed with the keys of any {@link Workload}.
+ *
+ * @author Tommy Ettinger
+ */
+public class Trace {
+
+	/** First bytes of a trace file, "CBTR" */
+	static final int MAGIC = 0x43425452;
+
+	/** Format version */
+	static final int VERSION = 1;
+
+	static final byte END = 0;
+	/** add(key) */
+	static final byte ADD = 1;
+	/** add(index, key) */
+	static final byte ADD_AT = 2;
+	/** remove(key) */
+	static final byte REMOVE = 3;
+	/** remove(index) */
+	static final byte REMOVE_AT = 4;
+	/** contains(key) */
+	static final byte CONTAINS = 5;
+	/** indexOf(key) */
+	static final byte INDEX_OF = 6;
+	/** get(index) */
+	static final byte GET = 7;
+	/** set(index, key) */
+	static final byte SET = 8;
+	/** clear() */
+	static final byte CLEAR = 9;
+	/** iterator(), the following NEXT and ITERATOR_REMOVE apply to it */
+	static final byte ITERATOR = 10;
+	/** next() on the last iterator */
+	static final byte NEXT = 11;
+	/** remove() on the last iterator */
+	static final byte ITERATOR_REMOVE = 12;
+	/** toArray() */
+	static final byte TO_ARRAY = 13;
+	/** addAll(keys) */
+	static final byte ADD_ALL = 14;
+	/** removeAll(keys) */
+	static final byte REMOVE_ALL = 15;
+	/** retainAll(keys) */
+	static final byte RETAIN_ALL = 16;
+	/** containsAll(keys) */
+	static final byte CONTAINS_ALL = 17;
+
+	/** Operation of each record */
+	private final byte[] operations;
+
+	/** Index of the first argument of each record in arguments, plus the end */
+	private final int[] argumentStart;
+
+	/** Arguments of every record, one after the other */
+	private final int[] arguments;
+
+	/** Size of the collection after each record */
+	private final int[] sizes;
+
+	/** Number of distinct keys */
+	private final int keyCount;
+
+	/**
+	 * Constructor
+	 *
+	 * @param operations operation of each record
+	 * @param argumentStart index of the first argument of each record, plus
+	 *            the end
+	 * @param arguments arguments of every record
+	 * @param sizes size of the collection after each record
+	 * @param keyCount number of distinct keys
+	 */
+	private Trace(byte[] operations, int[] argumentStart, int[] arguments, int[] sizes, int keyCount) {
+		this.operations = operations;
+		this.argumentStart = argumentStart;
+		this.arguments = arguments;
+		this.sizes = sizes;
+		this.keyCount = keyCount;
+	}
+
+	/**
+	 * Read a trace file
+	 *
+	 * @param file trace file written by a {@link TraceRecorder}
+	 * @return the trace
+	 * @throws IOException if the file cannot be read or is not a complete
+	 *             trace
+	 */
+	public static Trace read(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+				throw new IOException("Not a trace file: " + file);
+			}
+			byte[] operations = new byte[1024];
+			int[] argumentStart = new int[1025];
+			int[] arguments = new int[1024];
+			int[] sizes = new int[1024];
+			int count = 0;
+			int argumentCount = 0;
+			byte operation;
+			while ((operation = in.readByte()) != END) {
+				if (count == operations.length) {
+					operations = Arrays.copyOf(operations, count * 2);
+					argumentStart = Arrays.copyOf(argumentStart, count * 2 + 1);
+					sizes = Arrays.copyOf(sizes, count * 2);
+				}
+				int arity = arity(operation);
+				if (arity < 0) {
+					// bulk operation, the count comes first
+					arity = readVarint(in);
+				}
+				if (argumentCount + arity > arguments.length) {
+					arguments = Arrays.copyOf(arguments, Math.max(arguments.length * 2, argumentCount + arity));
+				}
+				for (int a = 0; a < arity; a++) {
+					arguments[argumentCount++] = readVarint(in);
+				}
+				operations[count] = operation;
+				sizes[count] = readVarint(in);
+				argumentStart[++count] = argumentCount;
+			}
+			int keyCount = readVarint(in);
+			if (readVarint(in) != count) {
+				throw new IOException("Truncated trace file: " + file);
+			}
+			return new Trace(Arrays.copyOf(operations, count), Arrays.copyOf(argumentStart, count + 1),
+					Arrays.copyOf(arguments, argumentCount), Arrays.copyOf(sizes, count), keyCount);
+		} catch (EOFException e) {
+			throw new IOException("Truncated trace file: " + file, e);
+		}
+	}
+
+	/**
+	 * @param operation an operation
+	 * @return its number of arguments, -1 for the bulk operations whose
+	 *         arguments start with their count
+	 * @throws IllegalArgumentException if the operation is unknown
+	 */
+	static int arity(byte operation) {
+		switch (operation) {
+		case CLEAR:
+		case ITERATOR:
+		case NEXT:
+		case ITERATOR_REMOVE:
+		case TO_ARRAY:
+			return 0;
+		case ADD:
+		case REMOVE:
+		case REMOVE_AT:
+		case CONTAINS:
+		case INDEX_OF:
+		case GET:
+			return 1;
+		case ADD_AT:
+		case SET:
+			return 2;
+		case ADD_ALL:
+		case REMOVE_ALL:
+		case RETAIN_ALL:
+		case CONTAINS_ALL:
+			return -1;
+		default:
+			throw new IllegalArgumentException("Unknown trace operation " + operation);
+		}
+	}
+
+	/**
+	 * @param in input
+	 * @return the next unsigned varint
+	 * @throws IOException if it cannot be read
+	 */
+	private static int readVarint(DataInputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if (b < 0x80) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	/**
+	 * @return number of records
+	 */
+	public int size() {
+		return operations.length;
+	}
+
+	/**
+	 * @return number of distinct keys used by the records
+	 */
+	public int getKeyCount() {
+		return keyCount;
+	}
+
+	/**
+	 * @param record record index
+	 * @return its operation
+	 */
+	byte getOperation(int record) {
+		return operations[record];
+	}
+
+	/**
+	 * @param record record index
+	 * @return its number of arguments, without the count of the bulk
+	 *         operations
+	 */
+	int getArgumentCount(int record) {
+		return argumentStart[record + 1] - argumentStart[record];
+	}
+
+	/**
+	 * @param record record index
+	 * @param argument argument index
+	 * @return the argument, a key id or an index
+	 */
+	int getArgument(int record, int argument) {
+		return arguments[argumentStart[record] + argument];
+	}
+
+	/**
+	 * @param record record index
+	 * @return the size of the recorded collection after this record
+	 */
+	int getExpectedSize(int record) {
+		return sizes[record];
+	}
+}
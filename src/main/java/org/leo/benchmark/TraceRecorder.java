@@ -0,0 +1,196 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Write the calls of a {@link RecordingCollection} or {@link RecordingList}
+ * into a trace file, see {@link Trace} for the format
+ *
+ * @author Tommy Ettinger
+ */
+public class TraceRecorder implements Closeable {
+
+	/** Trace file */
+	private final DataOutputStream out;
+
+	/** Id of every key met, in order of appearance */
+	private final Map<Object, Integer> keyIds = new HashMap<>();
+
+	/** Number of records written */
+	private int count;
+
+	/**
+	 * Constructor
+	 *
+	 * @param file trace file, overwritten
+	 * @throws IOException if the file cannot be written
+	 */
+	public TraceRecorder(File file) throws IOException {
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		out.writeInt(Trace.MAGIC);
+		out.writeByte(Trace.VERSION);
+	}
+
+	/**
+	 * @param key a key
+	 * @return its id, the number of keys met before it the first time
+	 */
+	private int id(Object key) {
+		Integer id = keyIds.get(key);
+		if (id == null) {
+			id = keyIds.size();
+			keyIds.put(key, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Record a call without argument
+	 *
+	 * @param operation the operation
+	 * @param size size of the collection after the call
+	 */
+	synchronized void record(byte operation, int size) {
+		try {
+			out.writeByte(operation);
+			end(size);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Record a call taking a key
+	 *
+	 * @param operation the operation
+	 * @param key its key
+	 * @param size size of the collection after the call
+	 */
+	synchronized void recordKey(byte operation, Object key, int size) {
+		try {
+			out.writeByte(operation);
+			writeVarint(id(key));
+			end(size);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Record a call taking an index
+	 *
+	 * @param operation the operation
+	 * @param index its index
+	 * @param size size of the collection after the call
+	 */
+	synchronized void recordIndex(byte operation, int index, int size) {
+		try {
+			out.writeByte(operation);
+			writeVarint(index);
+			end(size);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Record a call taking an index and a key
+	 *
+	 * @param operation the operation
+	 * @param index its index
+	 * @param key its key
+	 * @param size size of the collection after the call
+	 */
+	synchronized void recordIndexKey(byte operation, int index, Object key, int size) {
+		try {
+			out.writeByte(operation);
+			writeVarint(index);
+			writeVarint(id(key));
+			end(size);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Record a bulk call
+	 *
+	 * @param operation the operation
+	 * @param keys its keys
+	 * @param size size of the collection after the call
+	 */
+	synchronized void recordKeys(byte operation, Collection<?> keys, int size) {
+		try {
+			out.writeByte(operation);
+			writeVarint(keys.size());
+			for (Object key : keys) {
+				writeVarint(id(key));
+			}
+			end(size);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Finish a record
+	 *
+	 * @param size size of the collection after the call
+	 * @throws IOException if the trace cannot be written
+	 */
+	private void end(int size) throws IOException {
+		writeVarint(size);
+		count++;
+	}
+
+	/**
+	 * @param value a non-negative int, written on 1 to 5 bytes
+	 * @throws IOException if the trace cannot be written
+	 */
+	private void writeVarint(int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 * Write the end of the trace and close the file, the trace cannot be read
+	 * before
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		out.writeByte(Trace.END);
+		writeVarint(keyIds.size());
+		writeVarint(count);
+		out.close();
+	}
+}
@@ -0,0 +1,177 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Replay a {@link Trace} on any structure handled by
+ * {@link CollectionAdapters}, one record at a time. The keys and the
+ * arguments of the bulk operations are built once, so replaying a record
+ * only costs the call it stands for.
+ *
+ * @author Tommy Ettinger
+ */
+public class TraceReplay {
+
+	/** Replayed trace */
+	private final Trace trace;
+
+	/** Key of each record taking one, null for the others */
+	private final Object[] keys;
+
+	/** Keys of each bulk record, null for the others */
+	private final List<?>[] bulkKeys;
+
+	/** Index of each record taking one */
+	private final int[] indexes;
+
+	/** Replayed structure, as a list, null if it is not one */
+	private List<Object> list;
+
+	/** Last iterator created by the replay */
+	private Iterator<Object> iterator;
+
+	/**
+	 * Constructor
+	 *
+	 * @param trace replayed trace
+	 * @param keys keys replacing the recorded ones, at least
+	 *            {@link Trace#getKeyCount()}
+	 */
+	public TraceReplay(Trace trace, List<?> keys) {
+		this.trace = trace;
+		int size = trace.size();
+		this.keys = new Object[size];
+		bulkKeys = new List<?>[size];
+		indexes = new int[size];
+		for (int r = 0; r < size; r++) {
+			byte operation = trace.getOperation(r);
+			int arity = Trace.arity(operation);
+			if (arity < 0) {
+				List<Object> bulk = new ArrayList<>(trace.getArgumentCount(r));
+				for (int a = 0; a < trace.getArgumentCount(r); a++) {
+					bulk.add(keys.get(trace.getArgument(r, a)));
+				}
+				bulkKeys[r] = bulk;
+			} else if (operation == Trace.GET || operation == Trace.REMOVE_AT) {
+				indexes[r] = trace.getArgument(r, 0);
+			} else if (arity == 2) {
+				indexes[r] = trace.getArgument(r, 0);
+				this.keys[r] = keys.get(trace.getArgument(r, 1));
+			} else if (arity == 1) {
+				this.keys[r] = keys.get(trace.getArgument(r, 0));
+			}
+		}
+	}
+
+	/**
+	 * Replay one record, the first one must be replayed first on a new
+	 * structure
+	 *
+	 * @param adapter replayed structure
+	 * @param record record index
+	 * @return a value depending on the call result, to be consumed
+	 * @throws UnsupportedOperationException if the record is a list operation
+	 *             and the structure is not a list
+	 */
+	@SuppressWarnings("unchecked")
+	public int step(CollectionAdapter<Object> adapter, int record) {
+		if (record == 0) {
+			list = adapter.getTarget() instanceof List ? (List<Object>) adapter.getTarget() : null;
+			iterator = null;
+		}
+		switch (trace.getOperation(record)) {
+		case Trace.ADD:
+			return adapter.add(keys[record]) ? 1 : 0;
+		case Trace.ADD_AT:
+			list().add(indexes[record], keys[record]);
+			return 1;
+		case Trace.REMOVE:
+			return adapter.remove(keys[record]) ? 1 : 0;
+		case Trace.REMOVE_AT:
+			return list().remove(indexes[record]) == null ? 0 : 1;
+		case Trace.CONTAINS:
+			return adapter.contains(keys[record]) ? 1 : 0;
+		case Trace.INDEX_OF:
+			return list().indexOf(keys[record]);
+		case Trace.GET:
+			return list().get(indexes[record]) == null ? 0 : 1;
+		case Trace.SET:
+			return list().set(indexes[record], keys[record]) == null ? 0 : 1;
+		case Trace.CLEAR:
+			adapter.clear();
+			return 0;
+		case Trace.ITERATOR:
+			iterator = adapter.iterator();
+			return 1;
+		case Trace.NEXT:
+			return iterator.next() == null ? 0 : 1;
+		case Trace.ITERATOR_REMOVE:
+			iterator.remove();
+			return 1;
+		case Trace.TO_ARRAY:
+			return adapter.toArray().length;
+		case Trace.ADD_ALL:
+			return adapter.addAll(bulkKeys[record]) ? 1 : 0;
+		case Trace.REMOVE_ALL:
+			return adapter.removeAll(bulkKeys[record]) ? 1 : 0;
+		case Trace.RETAIN_ALL:
+			return adapter.retainAll(bulkKeys[record]) ? 1 : 0;
+		case Trace.CONTAINS_ALL:
+			return adapter.containsAll(bulkKeys[record]) ? 1 : 0;
+		default:
+			throw new IllegalStateException("Unknown trace operation " + trace.getOperation(record));
+		}
+	}
+
+	/**
+	 * @return the replayed structure as a list
+	 * @throws UnsupportedOperationException if it is not a list
+	 */
+	private List<Object> list() {
+		if (list == null) {
+			throw new UnsupportedOperationException("List operation replayed on a structure that is not a List");
+		}
+		return list;
+	}
+
+	/**
+	 * Replay the whole trace and compare the sizes with the recorded ones
+	 *
+	 * @param adapter a new, empty structure
+	 * @return the first record after which the size differs, or which
+	 *         failed, -1 if the structure behaves like the recorded one
+	 */
+	public int verify(CollectionAdapter<Object> adapter) {
+		for (int r = 0; r < trace.size(); r++) {
+			try {
+				step(adapter, r);
+			} catch (RuntimeException e) {
+				return r;
+			}
+			if (adapter.size() != trace.getExpectedSize(r)) {
+				return r;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,388 @@
+/*
+    Collections Benchmarks for Java Collections
+    Copyright (C) 2019 Leo Lewis
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ */
+package org.leo.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Keys used to populate and query the tested structures, and the order in
+ * which they are looked up
+ * <p>
+ * The key type (strings of a given length, boxed numbers, UUIDs, composite
+ * keys) and the distribution (sequential, uniform random, Zipfian, clustered,
+ * hash colliding) are independent, any task can run with any combination.
+ * The keys are always distinct, and the same seed always gives the same keys.
+ *
+ * @author Tommy Ettinger
+ */
+public class Workload {
+
+	/**
+	 * Type of the generated keys
+	 */
+	public enum KeyType {
+		/** Binary representation of the key number, as the original benchmark */
+		BINARY_STRING,
+		/** Base 62 representation of the key number, padded to the string length */
+		STRING,
+		/** Boxed int */
+		INTEGER,
+		/** Boxed long */
+		LONG,
+		/** Random-looking UUID */
+		UUID,
+		/** {@link CompositeKey}, with an expensive hashCode */
+		COMPOSITE
+	}
+
+	/**
+	 * Distribution of the generated keys
+	 */
+	public enum Distribution {
+		/** Consecutive key numbers, looked up from the last one */
+		SEQUENTIAL,
+		/** Key numbers spread over the whole range, looked up at random */
+		UNIFORM,
+		/** Key numbers spread over the whole range, a few hot keys are looked up most of the time */
+		ZIPF,
+		/** Runs of consecutive key numbers, looked up run by run */
+		CLUSTERED,
+		/**
+		 * Keys sharing the same hashCode where the key type allows it, looked up
+		 * from the last one. Integer keys cannot collide as their hashCode is
+		 * their value, they share their 16 low bits instead
+		 */
+		COLLIDING
+	}
+
+	/** Number of consecutive keys in a cluster */
+	private static final int CLUSTER_BITS = 5;
+
+	/** Skew of the Zipfian distribution, as in YCSB */
+	private static final double ZIPF_THETA = 0.99;
+
+	/** Digits of the STRING keys */
+	private static final char[] DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz"
+			.toCharArray();
+
+	/** Regions of the composite keys */
+	private static final String[] REGIONS = { "eu-west", "eu-central", "us-east", "us-west", "ap-south" };
+
+	private final KeyType keyType;
+
+	private final Distribution distribution;
+
+	/** Minimum length of the STRING keys */
+	private final int stringLength;
+
+	/** Seed of the random distributions */
+	private final long seed;
+
+	/**
+	 * Constructor
+	 *
+	 * @param keyType type of the keys
+	 * @param distribution distribution of the keys
+	 * @param stringLength minimum length of the STRING keys, longer if needed
+	 *            to keep the keys distinct
+	 * @param seed seed of the random distributions
+	 */
+	public Workload(KeyType keyType, Distribution distribution, int stringLength, long seed) {
+		this.keyType = keyType;
+		this.distribution = distribution;
+		this.stringLength = stringLength;
+		this.seed = seed;
+	}
+
+	/**
+	 * @return the keys of the original benchmark, Integer.toBinaryString(i)
+	 *         looked up from the last one
+	 */
+	public static Workload legacy() {
+		return new Workload(KeyType.BINARY_STRING, Distribution.SEQUENTIAL, 0, 0);
+	}
+
+	/**
+	 * Read the workload from the command line arguments --keys type,
+	 * --distribution name, --length count and --seed number
+	 *
+	 * @param args command line arguments, the other ones are ignored
+	 * @return the workload, the original one if none of these arguments is
+	 *         given
+	 */
+	public static Workload fromArgs(String[] args) {
+		KeyType keyType = KeyType.BINARY_STRING;
+		Distribution distribution = Distribution.SEQUENTIAL;
+		int stringLength = 16;
+		long seed = 0;
+		for (int i = 0; i + 1 < args.length; i++) {
+			if ("--keys".equals(args[i])) {
+				keyType = KeyType.valueOf(args[++i].toUpperCase());
+			} else if ("--distribution".equals(args[i])) {
+				distribution = Distribution.valueOf(args[++i].toUpperCase());
+			} else if ("--length".equals(args[i])) {
+				stringLength = Integer.parseInt(args[++i]);
+			} else if ("--seed".equals(args[i])) {
+				seed = Long.parseLong(args[++i]);
+			}
+		}
+		return new Workload(keyType, distribution, stringLength, seed);
+	}
+
+	/**
+	 * @param arg command line argument
+	 * @return true if it is one of the arguments read by
+	 *         {@link #fromArgs(String[])}, followed by its value
+	 */
+	public static boolean isArgument(String arg) {
+		return "--keys".equals(arg) || "--distribution".equals(arg) || "--length".equals(arg)
+				|| "--seed".equals(arg);
+	}
+
+	/**
+	 * @return the command line arguments read back into this workload by
+	 *         {@link #fromArgs(String[])}
+	 */
+	public List<String> toArgs() {
+		return Arrays.asList("--keys", keyType.name().toLowerCase(), "--distribution",
+				distribution.name().toLowerCase(), "--length", Integer.toString(stringLength), "--seed",
+				Long.toString(seed));
+	}
+
+	public KeyType getKeyType() {
+		return keyType;
+	}
+
+	public Distribution getDistribution() {
+		return distribution;
+	}
+
+	/**
+	 * @return true if this is the workload of the original benchmark
+	 */
+	public boolean isLegacy() {
+		return keyType == KeyType.BINARY_STRING && distribution == Distribution.SEQUENTIAL;
+	}
+
+	/**
+	 * @param count number of keys
+	 * @return count distinct keys, the first keys are the same whatever the
+	 *         count
+	 */
+	public List<Object> keys(int count) {
+		List<Object> keys = new ArrayList<>(count);
+		if (distribution == Distribution.COLLIDING) {
+			int blocks = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(1, count - 1)));
+			for (int i = 0; i < count; i++) {
+				keys.add(collidingKey(i, blocks));
+			}
+			return keys;
+		}
+		int bits = keyType == KeyType.INTEGER ? 32 : 64;
+		for (int i = 0; i < count; i++) {
+			long number;
+			switch (distribution) {
+			case UNIFORM:
+			case ZIPF:
+				number = permute(i + seed, bits);
+				break;
+			case CLUSTERED:
+				number = permute((i >>> CLUSTER_BITS) + seed, bits - CLUSTER_BITS) << CLUSTER_BITS
+						| (i & ((1 << CLUSTER_BITS) - 1));
+				break;
+			default:
+				number = i;
+			}
+			keys.add(key(number));
+		}
+		return keys;
+	}
+
+	/**
+	 * @param count number of lookups
+	 * @param universe number of keys that can be looked up
+	 * @return the indexes, in the key list, of the keys to look up
+	 */
+	public int[] lookups(int count, int universe) {
+		int[] lookups = new int[count];
+		if (universe <= 0) {
+			return lookups;
+		}
+		Random random = new Random(seed);
+		switch (distribution) {
+		case UNIFORM:
+			for (int i = 0; i < count; i++) {
+				lookups[i] = random.nextInt(universe);
+			}
+			break;
+		case ZIPF:
+			zipf(lookups, universe, random);
+			break;
+		case CLUSTERED:
+			int cluster = 1 << CLUSTER_BITS;
+			int start = 0;
+			for (int i = 0; i < count; i++) {
+				if (i % cluster == 0) {
+					start = random.nextInt(universe);
+				}
+				lookups[i] = (start + i % cluster) % universe;
+			}
+			break;
+		default:
+			for (int i = 0; i < count; i++) {
+				lookups[i] = universe - 1 - i % universe;
+			}
+		}
+		return lookups;
+	}
+
+	/**
+	 * Zipfian ranks, generated with the algorithm of Gray et al. used by YCSB
+	 *
+	 * @param lookups array to fill
+	 * @param universe number of keys
+	 * @param random random generator
+	 */
+	private static void zipf(int[] lookups, int universe, Random random) {
+		double zetan = 0;
+		for (int i = 1; i <= universe; i++) {
+			zetan += 1.0 / Math.pow(i, ZIPF_THETA);
+		}
+		double zeta2 = 1.0 + 1.0 / Math.pow(2, ZIPF_THETA);
+		double alpha = 1.0 / (1.0 - ZIPF_THETA);
+		double eta = (1.0 - Math.pow(2.0 / universe, 1.0 - ZIPF_THETA)) / (1.0 - zeta2 / zetan);
+		for (int i = 0; i < lookups.length; i++) {
+			double u = random.nextDouble();
+			double uz = u * zetan;
+			int rank;
+			if (uz < 1.0) {
+				rank = 0;
+			} else if (uz < 1.0 + Math.pow(0.5, ZIPF_THETA)) {
+				rank = 1;
+			} else {
+				rank = (int) (universe * Math.pow(eta * u - eta + 1, alpha));
+			}
+			lookups[i] = Math.min(Math.max(rank, 0), universe - 1);
+		}
+	}
+
+	/**
+	 * @param number distinct key number
+	 * @return the key of that number
+	 */
+	private Object key(long number) {
+		switch (keyType) {
+		case STRING:
+			return encode(number);
+		case INTEGER:
+			return (int) number;
+		case LONG:
+			return number;
+		case UUID:
+			return new UUID(number, permute(number, 64));
+		case COMPOSITE:
+			return new CompositeKey(number, (int) (number & 63), REGIONS[(int) ((number >>> 6) % REGIONS.length)]);
+		default:
+			return Long.toBinaryString(number);
+		}
+	}
+
+	/**
+	 * @param index key index
+	 * @param blocks number of "Aa"/"BB" blocks of the string keys
+	 * @return a key sharing its hashCode with all the other keys
+	 */
+	private Object collidingKey(int index, int blocks) {
+		long number = index & 0xFFFFFFFFL;
+		switch (keyType) {
+		case INTEGER:
+			// equal low bits up to 2^16 keys, the rotation keeps them distinct
+			return Integer.rotateLeft(index, 16);
+		case LONG:
+			// high and low halves cancel in Long.hashCode
+			return number << 32 | number;
+		case UUID:
+			// most and least significant halves cancel in UUID.hashCode
+			return new UUID(number, number);
+		case COMPOSITE:
+			return new CompositeKey(number << 32 | number, 0, REGIONS[0]);
+		default:
+			// "Aa" and "BB" have the same hashCode, so do all the strings
+			// made of the same number of them
+			StringBuilder sb = new StringBuilder(Math.max(stringLength, blocks * 2));
+			for (int i = blocks * 2; i < stringLength; i++) {
+				sb.append('x');
+			}
+			for (int b = blocks - 1; b >= 0; b--) {
+				sb.append((index >>> b & 1) == 0 ? "Aa" : "BB");
+			}
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * @param number key number
+	 * @return its base 62 representation, left padded with zeros to the
+	 *         string length, so that the keys stay distinct
+	 */
+	private String encode(long number) {
+		char[] buffer = new char[Math.max(stringLength, 11)];
+		int pos = buffer.length;
+		long n = number;
+		do {
+			buffer[--pos] = DIGITS[(int) Long.remainderUnsigned(n, DIGITS.length)];
+			n = Long.divideUnsigned(n, DIGITS.length);
+		} while (n != 0);
+		int digits = buffer.length - pos;
+		int length = Math.max(stringLength, digits);
+		while (pos > buffer.length - length) {
+			buffer[--pos] = DIGITS[0];
+		}
+		return new String(buffer, pos, length);
+	}
+
+	/**
+	 * Bijective mix of the low bits of a number, so distinct inputs give
+	 * distinct, random-looking outputs
+	 *
+	 * @param x input
+	 * @param bits number of bits, 64 at most
+	 * @return a number on the same bits
+	 */
+	static long permute(long x, int bits) {
+		long mask = bits == 64 ? -1L : (1L << bits) - 1;
+		int shift = Math.max(1, bits / 2);
+		x &= mask;
+		// multiplications by odd numbers and xorshifts are bijective modulo 2^bits
+		x = (x * 0x9E3779B97F4A7C15L) & mask;
+		x ^= x >>> shift;
+		x = (x * 0xBF58476D1CE4E5B9L) & mask;
+		x ^= x >>> shift;
+		return x;
+	}
+
+	@Override
+	public String toString() {
+		return distribution + " " + keyType + (keyType == KeyType.STRING ? "(" + stringLength + ")" : "") + " keys";
+	}
+}